@@ -0,0 +1,47 @@
+/*
+ * JMH benchmarks for the scraper's parse and persistence hot paths.
+ *
+ * The scraper sources live in the root src/ tree (default package, built by build.sh), so this
+ * project compiles them directly and takes their dependencies from lib/.
+ *
+ * Run with: gradle :benchmarks:jmh   (results in benchmarks/build/results/jmh/)
+ */
+
+plugins {
+    java
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+repositories {
+    mavenCentral()
+}
+
+sourceSets {
+    main {
+        java.setSrcDirs(listOf("../src/main/java"))
+        resources.setSrcDirs(listOf("../src/main/resources"))
+    }
+}
+
+dependencies {
+    implementation(fileTree("../lib") {
+        include("**/*.jar")
+        exclude("**/*-sources.jar")
+    })
+
+    // lib/ ships no SQLite driver; the benchmarks need one at runtime
+    runtimeOnly("org.xerial:sqlite-jdbc:3.47.1.0")
+}
+
+java {
+    toolchain {
+        languageVersion.set(JavaLanguageVersion.of(17))
+    }
+}
+
+jmh {
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    resultFormat.set("JSON")
+}
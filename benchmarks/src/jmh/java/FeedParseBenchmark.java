@@ -0,0 +1,66 @@
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse hot path on recorded-shape Sina feed payloads: JSONP unwrapping, the old JsonNode tree path,
+ * and the streaming parser.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class FeedParseBenchmark {
+
+    @Param({"sina_feed_page_20.jsonp", "sina_feed_page_100.json"})
+    public String fixture;
+
+    private byte[] bodyBytes;
+    private String body;
+
+    @Setup
+    public void loadFixture() throws IOException {
+        try (InputStream in = FeedParseBenchmark.class.getResourceAsStream("/fixtures/" + fixture)) {
+            if (in == null) {
+                throw new IOException("Missing fixture: " + fixture);
+            }
+            bodyBytes = in.readAllBytes();
+        }
+        body = new String(bodyBytes, StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String extractPureJson() {
+        return SinaFeedParser.extractPureJson(body);
+    }
+
+    // The pre-streaming path: substring copy, a fresh ObjectMapper and a full JsonNode tree per response
+    @Benchmark
+    public void treeParse(Blackhole blackhole) throws IOException {
+        JsonNode root = new ObjectMapper().readTree(SinaFeedParser.extractPureJson(body));
+        for (JsonNode item : root.path("result").path("data").path("feed").path("list")) {
+            blackhole.consume(item.path("rich_text").asText(null));
+            blackhole.consume(item.path("create_time").asText(null));
+        }
+    }
+
+    @Benchmark
+    public List<News> streamingParse() throws IOException {
+        return SinaFeedParser.parse(new ByteArrayInputStream(bodyBytes), FeedWatermark.empty());
+    }
+}
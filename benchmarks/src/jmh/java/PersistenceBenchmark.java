@@ -0,0 +1,80 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insert cost for one feed page worth of rows: one connection per row, one transaction per page,
+ * and the NewsWriter pipeline. Each invocation writes fresh rows so the dedup index never skips them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+
+    @Param({"20", "100"})
+    public int rowsPerPage;
+
+    private Path databaseDir;
+    private DatabaseHandler dbHandler;
+    private NewsWriter newsWriter;
+    private long sequence = 0;
+
+    @Setup(Level.Trial)
+    public void openDatabase() throws Exception {
+        databaseDir = Files.createTempDirectory("news-bench-persist");
+        dbHandler = new DatabaseHandler(databaseDir.toString());
+        newsWriter = dbHandler.openWriter(rowsPerPage, 1000, rowsPerPage * 4);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeDatabase() throws IOException {
+        newsWriter.close();
+        dbHandler.close();
+        BenchmarkFiles.deleteRecursively(databaseDir);
+    }
+
+    @Benchmark
+    public void saveSingleRows() {
+        for (News news : nextPage()) {
+            dbHandler.saveNews(news.getNewsTime(), news.getCategory(), news.getContent());
+        }
+    }
+
+    @Benchmark
+    public void saveBatch() {
+        dbHandler.saveNews(nextPage());
+    }
+
+    @Benchmark
+    public void writerPipeline() throws InterruptedException {
+        for (News news : nextPage()) {
+            newsWriter.submit(news);
+        }
+        newsWriter.flush();
+    }
+
+    private List<News> nextPage() {
+        List<News> page = new ArrayList<>(rowsPerPage);
+        for (int i = 0; i < rowsPerPage; i++) {
+            long id = ++sequence;
+            page.add(new News(new Timestamp(1_700_000_000_000L + id * 1000), "bench",
+                    "Benchmark news item #" + id + " about market moves", id));
+        }
+        return page;
+    }
+}
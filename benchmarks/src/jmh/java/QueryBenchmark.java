@@ -0,0 +1,80 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One-hour time-window queries against tables of increasing size, one row per second of history.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class QueryBenchmark {
+
+    private static final long BASE_MILLIS = 1_700_000_000_000L;
+    private static final int LOAD_CHUNK = 5000;
+
+    @Param({"10000", "100000", "1000000"})
+    public int tableSize;
+
+    private Path databaseDir;
+    private DatabaseHandler dbHandler;
+    private Timestamp windowStart;
+    private Timestamp windowEnd;
+
+    @Setup(Level.Trial)
+    public void populate() throws IOException {
+        databaseDir = Files.createTempDirectory("news-bench-query");
+        dbHandler = new DatabaseHandler(databaseDir.toString());
+
+        List<News> chunk = new ArrayList<>(LOAD_CHUNK);
+        for (int i = 0; i < tableSize; i++) {
+            chunk.add(new News(new Timestamp(BASE_MILLIS + i * 1000L), i % 2 == 0 ? "A" : "B",
+                    "Archived news item #" + i, i + 1));
+            if (chunk.size() == LOAD_CHUNK) {
+                dbHandler.saveNews(chunk);
+                chunk.clear();
+            }
+        }
+        dbHandler.saveNews(chunk);
+
+        // The most recent hour of history
+        windowEnd = new Timestamp(BASE_MILLIS + (tableSize - 1) * 1000L);
+        windowStart = new Timestamp(windowEnd.getTime() - 3_600_000L);
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() throws IOException {
+        dbHandler.close();
+        BenchmarkFiles.deleteRecursively(databaseDir);
+    }
+
+    @Benchmark
+    public List<News> fetchNewsByTimeWindow() {
+        return dbHandler.fetchNewsByTimeWindow(windowStart, windowEnd);
+    }
+
+    @Benchmark
+    public long streamNewsByTimeWindow() {
+        return dbHandler.streamNewsByTimeWindow(windowStart, windowEnd).count();
+    }
+
+    @Benchmark
+    public NewsColumns loadColumns() {
+        return dbHandler.loadColumns(windowStart, windowEnd, false);
+    }
+}
@@ -12,3 +12,4 @@ plugins {
 
 rootProject.name = "NewsScrapper"
 include("app")
+include("benchmarks")
@@ -0,0 +1,59 @@
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Process-wide dictionary of news categories. Each distinct category gets one canonical String instance
+ * and a small int code, so millions of rows share a handful of category objects and columnar storage
+ * can keep an int per row. Feeds only use a few dozen tags, so the dictionary is never pruned.
+ */
+public final class CategoryDictionary {
+
+    // Code used for rows without a category
+    public static final int NO_CATEGORY = -1;
+
+    private static final Map<String, Integer> CODES = new ConcurrentHashMap<>();
+    private static final List<String> NAMES = new CopyOnWriteArrayList<>();
+
+    private CategoryDictionary() {
+    }
+
+    /**
+     * Returns the code of a category, assigning the next free one the first time it is seen.
+     */
+    public static int code(String category) {
+        if (category == null) {
+            return NO_CATEGORY;
+        }
+        Integer code = CODES.get(category);
+        if (code != null) {
+            return code;
+        }
+        synchronized (NAMES) {
+            code = CODES.get(category);
+            if (code == null) {
+                // Name first, so a reader that finds the code can always resolve it
+                code = NAMES.size();
+                NAMES.add(category);
+                CODES.put(category, code);
+            }
+            return code;
+        }
+    }
+
+    public static String name(int code) {
+        return code == NO_CATEGORY ? null : NAMES.get(code);
+    }
+
+    /**
+     * The canonical instance of a category string (null stays null).
+     */
+    public static String intern(String category) {
+        return category == null ? null : name(code(category));
+    }
+
+    public static int size() {
+        return NAMES.size();
+    }
+}
@@ -0,0 +1,293 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compact, gzip-compressed columnar file format for news, used for cold storage of archived partitions.
+ *
+ * Layout: the magic "NEWSCOL1", a flags byte (bit 0: contents included), then blocks of up to
+ * BLOCK_ROWS rows, ended by a zero row count. Within a block each column is stored contiguously:
+ * times as a first value plus zig-zag varint deltas, source ids as varint deltas, categories as a
+ * block-local dictionary plus one varint code per row, and contents as length-prefixed UTF-8.
+ * Rows in time order compress to a few bytes each before the content. Blocks are written and read
+ * one at a time, so files of any size stream in bounded memory.
+ */
+public final class ColumnarNewsFile {
+
+    private static final byte[] MAGIC = {'N', 'E', 'W', 'S', 'C', 'O', 'L', '1'};
+    private static final int FLAG_CONTENT = 1;
+
+    // Rows per block: large enough for good compression, small enough to buffer
+    static final int BLOCK_ROWS = 16_384;
+
+    private ColumnarNewsFile() {
+    }
+
+    public static Writer openWriter(File file, boolean withContent) throws IOException {
+        return new Writer(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(file)), 1 << 16), withContent);
+    }
+
+    public static Reader openReader(File file) throws IOException {
+        return new Reader(new GZIPInputStream(new BufferedInputStream(new FileInputStream(file)), 1 << 16));
+    }
+
+    /**
+     * Appends rows and writes them out a block at a time. Closing writes the last block and the end marker.
+     */
+    public static final class Writer implements AutoCloseable {
+        private final DataOutputStream out;
+        private final NewsColumns block;
+        private long rowsWritten = 0;
+
+        public Writer(OutputStream out, boolean withContent) throws IOException {
+            this.out = new DataOutputStream(out);
+            this.block = new NewsColumns(BLOCK_ROWS, withContent);
+            this.out.write(MAGIC);
+            this.out.writeByte(withContent ? FLAG_CONTENT : 0);
+        }
+
+        public void add(News news) throws IOException {
+            add(news.getNewsTimeMillis(), news.getCategory(), news.getContent(), news.getSourceId());
+        }
+
+        public void add(long timeMillis, String category, String content, long sourceId) throws IOException {
+            block.add(timeMillis, category, content, sourceId);
+            if (block.size() == BLOCK_ROWS) {
+                writeBlock();
+            }
+        }
+
+        public long getRowsWritten() {
+            return rowsWritten + block.size();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                writeBlock();
+                out.writeInt(0);
+            } finally {
+                out.close();
+            }
+        }
+
+        private void writeBlock() throws IOException {
+            int rows = block.size();
+            if (rows == 0) {
+                return;
+            }
+            out.writeInt(rows);
+
+            long previous = block.getTimeMillis(0);
+            out.writeLong(previous);
+            for (int i = 1; i < rows; i++) {
+                long time = block.getTimeMillis(i);
+                writeVarLong(out, zigZag(time - previous));
+                previous = time;
+            }
+
+            previous = 0;
+            for (int i = 0; i < rows; i++) {
+                long sourceId = block.getSourceId(i);
+                writeVarLong(out, zigZag(sourceId - previous));
+                previous = sourceId;
+            }
+
+            // Block-local dictionary, so a reader never depends on this process's category codes
+            Map<Integer, Integer> localCodes = new HashMap<>();
+            int[] rowCodes = new int[rows];
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < rows; i++) {
+                int code = block.getCategoryCode(i);
+                if (code == CategoryDictionary.NO_CATEGORY) {
+                    rowCodes[i] = 0;
+                    continue;
+                }
+                Integer local = localCodes.get(code);
+                if (local == null) {
+                    local = localCodes.size() + 1;
+                    localCodes.put(code, local);
+                    names.add(CategoryDictionary.name(code));
+                }
+                rowCodes[i] = local;
+            }
+            writeVarLong(out, names.size());
+            for (int i = 0; i < names.size(); i++) {
+                writeString(out, names.get(i));
+            }
+            for (int code : rowCodes) {
+                writeVarLong(out, code);
+            }
+
+            if (block.hasContent()) {
+                for (int i = 0; i < rows; i++) {
+                    writeString(out, block.getContent(i));
+                }
+            }
+
+            rowsWritten += rows;
+            block.clear();
+        }
+    }
+
+    /**
+     * Reads a file block by block.
+     */
+    public static final class Reader implements AutoCloseable {
+        private final DataInputStream in;
+        private final boolean withContent;
+        private boolean finished = false;
+
+        public Reader(InputStream in) throws IOException {
+            this.in = new DataInputStream(in);
+            byte[] magic = new byte[MAGIC.length];
+            this.in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a columnar news file");
+            }
+            this.withContent = (this.in.readByte() & FLAG_CONTENT) != 0;
+        }
+
+        public boolean hasContent() {
+            return withContent;
+        }
+
+        /**
+         * Reads the next block into a new NewsColumns, or returns null after the last one.
+         */
+        public NewsColumns readBlock() throws IOException {
+            if (finished) {
+                return null;
+            }
+            int rows = in.readInt();
+            if (rows == 0) {
+                finished = true;
+                return null;
+            }
+            if (rows < 0 || rows > BLOCK_ROWS) {
+                throw new IOException("Corrupt block header: " + rows + " rows");
+            }
+
+            long[] times = new long[rows];
+            times[0] = in.readLong();
+            for (int i = 1; i < rows; i++) {
+                times[i] = times[i - 1] + unZigZag(readVarLong(in));
+            }
+
+            long[] sourceIds = new long[rows];
+            long previous = 0;
+            for (int i = 0; i < rows; i++) {
+                previous += unZigZag(readVarLong(in));
+                sourceIds[i] = previous;
+            }
+
+            int dictionarySize = (int) readVarLong(in);
+            String[] names = new String[dictionarySize + 1];
+            for (int i = 1; i <= dictionarySize; i++) {
+                names[i] = readString(in);
+            }
+            String[] categories = new String[rows];
+            for (int i = 0; i < rows; i++) {
+                int code = (int) readVarLong(in);
+                if (code > dictionarySize) {
+                    throw new IOException("Corrupt category code " + code);
+                }
+                categories[i] = names[code];
+            }
+
+            NewsColumns block = new NewsColumns(rows, withContent);
+            for (int i = 0; i < rows; i++) {
+                block.add(times[i], categories[i], withContent ? readString(in) : null, sourceIds[i]);
+            }
+            return block;
+        }
+
+        /**
+         * Reads every remaining row into one NewsColumns.
+         */
+        public NewsColumns readAll() throws IOException {
+            NewsColumns all = new NewsColumns(BLOCK_ROWS, withContent);
+            NewsColumns block;
+            while ((block = readBlock()) != null) {
+                for (int i = 0; i < block.size(); i++) {
+                    all.add(block.getTimeMillis(i), block.getCategory(i), block.getContent(i), block.getSourceId(i));
+                }
+            }
+            all.trimToSize();
+            return all;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new EOFException("Malformed varint");
+    }
+
+    // Length + 1 as a varint (0 means null), then the UTF-8 bytes
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        long length = readVarLong(in);
+        if (length == 0) {
+            return null;
+        }
+        if (length - 1 > Integer.MAX_VALUE) {
+            throw new IOException("Corrupt string length " + length);
+        }
+        byte[] bytes = new byte[(int) (length - 1)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
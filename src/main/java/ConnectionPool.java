@@ -0,0 +1,261 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Managed SQLite connections for one database file: a single writer connection plus a small pool of
+ * read-only connections and one read-only monitor connection, each with its own prepared-statement cache.
+ *
+ * The database runs in WAL mode, so readers see the last committed snapshot and never wait for the writer
+ * (or block it). All writes go through the one writer connection under a lock, so writers queue in Java
+ * instead of spinning on SQLITE_BUSY. synchronous=NORMAL is durable against application crashes in WAL
+ * mode; only an OS crash or power loss can drop the last few commits.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /**
+     * Work run against a borrowed connection.
+     */
+    public interface SqlWork<T> {
+        T run(PooledConnection conn) throws SQLException;
+    }
+
+    /**
+     * A pooled connection whose prepared statements are cached by SQL text and reused across borrows.
+     * Statements from prepare() belong to the cache and must not be closed by the caller; their result
+     * sets must be.
+     */
+    public static final class PooledConnection {
+        private final Connection conn;
+        private final Map<String, PreparedStatement> statements;
+
+        PooledConnection(Connection conn, int statementCacheSize) {
+            this.conn = conn;
+            // Access order, so the least recently used statement is closed when the cache is full
+            this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                    if (size() <= statementCacheSize) {
+                        return false;
+                    }
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+            };
+        }
+
+        public PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement stmt = statements.get(sql);
+            if (stmt == null || stmt.isClosed()) {
+                stmt = conn.prepareStatement(sql);
+                statements.put(sql, stmt);
+            }
+            return stmt;
+        }
+
+        // The underlying connection, e.g. for DDL or transaction control
+        public Connection raw() {
+            return conn;
+        }
+
+        void close() {
+            for (PreparedStatement stmt : statements.values()) {
+                closeQuietly(stmt);
+            }
+            statements.clear();
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+
+        private static void closeQuietly(PreparedStatement stmt) {
+            try {
+                stmt.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Negative cache_size is in KiB rather than pages
+    private static final int CACHE_SIZE_KIB = 16 * 1024;
+    private static final int BUSY_TIMEOUT_MILLIS = 5000;
+    private static final int STATEMENT_CACHE_SIZE = 32;
+
+    private final String dbUrl;
+    private final int maxReaders;
+
+    private final PooledConnection writer;
+    private final ReentrantLock writerLock = new ReentrantLock();
+
+    // Read-only connection of withMonitor, opened on first use
+    private PooledConnection monitor;
+    private final ReentrantLock monitorLock = new ReentrantLock();
+
+    // Idle readers; more are opened lazily up to maxReaders, after which borrowers wait
+    private final BlockingQueue<PooledConnection> idleReaders = new LinkedBlockingQueue<>();
+    private final List<PooledConnection> allReaders = new ArrayList<>();
+    private volatile boolean closed = false;
+
+    public ConnectionPool(String dbUrl, int maxReaders) throws SQLException {
+        if (maxReaders <= 0) {
+            throw new IllegalArgumentException("maxReaders must be positive");
+        }
+        this.dbUrl = dbUrl;
+        this.maxReaders = maxReaders;
+
+        Connection conn = DriverManager.getConnection(dbUrl);
+        try (Statement stmt = conn.createStatement()) {
+            // journal_mode is stored in the database file, so this only does work the first time
+            stmt.execute("PRAGMA journal_mode = WAL");
+        }
+        applyPragmas(conn);
+        this.writer = new PooledConnection(conn, STATEMENT_CACHE_SIZE);
+    }
+
+    /**
+     * Runs work on the writer connection (auto-commit on), excluding every other writer meanwhile.
+     */
+    public <T> T withWriter(SqlWork<T> work) throws SQLException {
+        ensureOpen();
+        writerLock.lock();
+        try {
+            return work.run(writer);
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    /**
+     * Runs work on the writer connection as one transaction: committed if it returns, rolled back if it throws.
+     */
+    public <T> T inTransaction(SqlWork<T> work) throws SQLException {
+        return withWriter(conn -> {
+            Connection raw = conn.raw();
+            raw.setAutoCommit(false);
+            try {
+                T result = work.run(conn);
+                raw.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                raw.rollback();
+                throw e;
+            } finally {
+                raw.setAutoCommit(true);
+            }
+        });
+    }
+
+    /**
+     * Runs read-only work on a pooled reader connection; waits if every reader is busy.
+     */
+    public <T> T withReader(SqlWork<T> work) throws SQLException {
+        PooledConnection reader = borrowReader();
+        try {
+            return work.run(reader);
+        } finally {
+            idleReaders.offer(reader);
+        }
+    }
+
+    /**
+     * Runs read-only work on a connection kept apart from the pool, one caller at a time. For per-connection
+     * state such as PRAGMA data_version, which only means something when it is always read on the same connection.
+     */
+    public <T> T withMonitor(SqlWork<T> work) throws SQLException {
+        monitorLock.lock();
+        try {
+            // Checked under the lock, so no monitor is opened after close() has closed it
+            ensureOpen();
+            if (monitor == null) {
+                monitor = openReader();
+            }
+            return work.run(monitor);
+        } finally {
+            monitorLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        writerLock.lock();
+        try {
+            writer.close();
+        } finally {
+            writerLock.unlock();
+        }
+        monitorLock.lock();
+        try {
+            if (monitor != null) {
+                monitor.close();
+                monitor = null;
+            }
+        } finally {
+            monitorLock.unlock();
+        }
+        synchronized (allReaders) {
+            for (PooledConnection reader : allReaders) {
+                reader.close();
+            }
+            allReaders.clear();
+        }
+        idleReaders.clear();
+    }
+
+    private PooledConnection borrowReader() throws SQLException {
+        ensureOpen();
+        PooledConnection reader = idleReaders.poll();
+        if (reader != null) {
+            return reader;
+        }
+        synchronized (allReaders) {
+            if (allReaders.size() < maxReaders) {
+                reader = openReader();
+                allReaders.add(reader);
+                return reader;
+            }
+        }
+        try {
+            return idleReaders.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a reader connection", e);
+        }
+    }
+
+    private PooledConnection openReader() throws SQLException {
+        Connection conn = DriverManager.getConnection(dbUrl);
+        applyPragmas(conn);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA query_only = ON");
+        }
+        return new PooledConnection(conn, STATEMENT_CACHE_SIZE);
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+    }
+
+    private static void applyPragmas(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA synchronous = NORMAL");
+            stmt.execute("PRAGMA cache_size = -" + CACHE_SIZE_KIB);
+            stmt.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MILLIS);
+            stmt.execute("PRAGMA temp_store = MEMORY");
+        }
+    }
+}
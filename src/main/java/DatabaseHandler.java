@@ -1,117 +1,872 @@
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.*;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class DatabaseHandler {
-    private static final String DB_DIRECTORY = "database";
+public class DatabaseHandler implements AutoCloseable {
+    static final String DB_DIRECTORY = "database";
     private static final String DB_FILE = "news.db";
-    private static final String DB_URL = "jdbc:sqlite:" + DB_DIRECTORY + File.separator + DB_FILE;
+
+    // Monthly partitions (see NewsArchive) live in this subdirectory of the database directory
+    private static final String ARCHIVE_DIRECTORY = "archive";
+
+    // The 'news' table; archive partitions use the same definition
+    static final String NEWS_TABLE_SQL = """
+            CREATE TABLE IF NOT EXISTS news (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,   -- Unique identifier for each news entry
+                news_time TIMESTAMP NOT NULL,           -- Timestamp of the news (required field)
+                category TEXT,                          -- Category of the news (optional)
+                content TEXT,                           -- Main content of the news (optional)
+                dedup_key TEXT,                         -- Hash of news_time + content, see computeDedupKey
+                source_id INTEGER NOT NULL DEFAULT 0    -- Feed item id at the source, 0 if unknown
+            );
+            """;
+
+    // Secondary indexes of 'news'; bulk imports drop them and build them again after the load
+    static final String TIME_INDEX_SQL = "CREATE INDEX IF NOT EXISTS idx_news_time ON news (news_time)";
+    static final String CATEGORY_TIME_INDEX_SQL =
+            "CREATE INDEX IF NOT EXISTS idx_news_category_time ON news (category, news_time)";
+
+    // Keeps news_fts in step with inserts, bulk imports included
+    static final String FTS_INSERT_TRIGGER_SQL = """
+            CREATE TRIGGER IF NOT EXISTS news_fts_insert AFTER INSERT ON news BEGIN
+                INSERT INTO news_fts (rowid, content, category) VALUES (new.id, new.content, new.category);
+            END;
+            """;
+
+    // Shared by the single-row, batched and pipelined (NewsWriter) insert paths
+    static final String INSERT_NEWS_SQL =
+            "INSERT OR IGNORE INTO news (news_time, category, content, dedup_key, source_id) VALUES (?, ?, ?, ?, ?)";
+
+    // One search term in the LIKE fallback of searchNews and the partition search; bound twice with likePattern
+    static final String LIKE_TERM_SQL = " AND (content LIKE ? ESCAPE '\\' OR category LIKE ? ESCAPE '\\')";
+
+    // Default number of rows fetched per page by the streaming queries
+    private static final int DEFAULT_STREAM_PAGE_SIZE = 500;
+
+    // The trigram tokenizer only indexes terms of at least this many characters
+    private static final int FTS_MIN_TERM_LENGTH = 3;
+
+    // Rows read per page while backfilling dedup keys on an existing database
+    private static final int MIGRATION_PAGE_SIZE = 1000;
+
+    // Defaults for the write pipeline returned by openWriter()
+    private static final int DEFAULT_WRITER_BATCH_SIZE = 100;
+    private static final long DEFAULT_WRITER_FLUSH_MILLIS = 1000;
+    private static final int DEFAULT_WRITER_QUEUE_CAPACITY = 1000;
+
+    // Read-only connections kept open for queries; they run alongside the writer thanks to WAL
+    private static final int DEFAULT_READ_POOL_SIZE = 4;
+
+    // Recent news kept in memory for time-window queries; the entry cap bounds memory during bursts
+    private static final long DEFAULT_HOT_WINDOW_MILLIS = 60 * 60 * 1000L;
+    private static final int HOT_WINDOW_MAX_ENTRIES = 50_000;
+
+    // How long a hot-window query may go without checking for writes from outside this handler
+    private static final long HOT_WINDOW_CHECK_MILLIS = 200;
+
+    // False if this SQLite build has no FTS5; searchNews then falls back to LIKE scans of the time window
+    private boolean ftsAvailable = false;
+
+    // Directory and JDBC URL of this handler's database file
+    private final String databaseDirectory;
+    private final String dbUrl;
+
+    // One writer connection and a pool of readers, shared by every method and by openWriter()
+    private final ConnectionPool pool;
+
+    // Last hour (by default) of committed news, or null if disabled; replaced when it has to be reloaded
+    private final long hotWindowMillis;
+    private volatile HotNewsWindow hotWindow;
+
+    // Highest news id the hot window holds every row up to, -1 while unknown; commits compare it with MAX(id)
+    // to notice rows another process or handler added to the same file
+    private volatile long hotWindowMaxId = -1;
+
+    // PRAGMA data_version on the pool's monitor connection when the window was last known complete, -1 while
+    // unknown. It changes whenever any other connection commits; this handler's own commits re-read it, so a
+    // different value means an outside write, and queries go to SQLite until the window is reloaded.
+    private volatile long hotWindowVersion = -1;
+
+    // Last data_version hotRange read, and when; read at most every HOT_WINDOW_CHECK_MILLIS
+    private volatile long observedVersion = -1;
+    private volatile long observedAt = 0;
+
+    // Months moved out of the live table, one database file each
+    private final NewsArchive archive;
 
     public DatabaseHandler() {
+        this(DB_DIRECTORY);
+    }
+
+    // Use a news.db in another directory, e.g. a scratch database for benchmarks or replay runs
+    public DatabaseHandler(String databaseDirectory) {
+        this(databaseDirectory, DEFAULT_READ_POOL_SIZE);
+    }
+
+    public DatabaseHandler(String databaseDirectory, int readPoolSize) {
+        this(databaseDirectory, readPoolSize, DEFAULT_HOT_WINDOW_MILLIS);
+    }
+
+    // hotWindowMillis = 0 disables the in-memory window, so every query goes to SQLite
+    public DatabaseHandler(String databaseDirectory, int readPoolSize, long hotWindowMillis) {
+        this.databaseDirectory = databaseDirectory;
+        this.dbUrl = "jdbc:sqlite:" + databaseDirectory + File.separator + DB_FILE;
         ensureDatabaseDirectory();
+        try {
+            this.pool = new ConnectionPool(dbUrl, readPoolSize);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot open database " + dbUrl, e);
+        }
         initDatabase();
+        try {
+            this.archive = new NewsArchive(pool, new File(databaseDirectory, ARCHIVE_DIRECTORY), ZoneId.systemDefault());
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot read archive partitions of " + dbUrl, e);
+        }
+        this.hotWindowMillis = hotWindowMillis;
+        if (hotWindowMillis > 0) {
+            loadHotWindow();
+        }
+    }
+
+    // Close the pooled connections; writers opened from this handler must be closed first
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    // Fill the in-memory window with what is already stored, so it is complete from the start. Also used to
+    // resync after another writer added rows; callers other than the constructor hold the writer lock.
+    private void loadHotWindow() {
+        hotWindowVersion = -1;
+        hotWindowMaxId = -1;
+        long[] snapshot;
+        try {
+            snapshot = pool.withMonitor(DatabaseHandler::versionAndMaxId);
+        } catch (SQLException e) {
+            // Queries keep going to SQLite until a later commit retries the reload
+            e.printStackTrace();
+            return;
+        }
+        HotNewsWindow window = new HotNewsWindow(hotWindowMillis, HOT_WINDOW_MAX_ENTRIES);
+        Timestamp floor = new Timestamp(window.floorMillis(System.currentTimeMillis()));
+        StreamSupport.stream(new KeysetPageSpliterator(pool, null, floor, new Timestamp(Long.MAX_VALUE),
+                DEFAULT_STREAM_PAGE_SIZE), false).forEach(window::add);
+        hotWindow = window;
+        hotWindowMaxId = snapshot[1];
+        markWindowVersion(snapshot[0]);
+    }
+
+    // Rows committed after the id was read may be in the window already; they are never missing from it
+    private static long maxNewsId(ConnectionPool.PooledConnection conn) throws SQLException {
+        try (ResultSet rs = conn.prepare("SELECT COALESCE(MAX(id), 0) FROM news").executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0L;
+        }
+    }
+
+    private static long dataVersion(ConnectionPool.PooledConnection conn) throws SQLException {
+        try (ResultSet rs = conn.prepare("PRAGMA data_version").executeQuery()) {
+            return rs.next() ? rs.getLong(1) : -1L;
+        }
+    }
+
+    // data_version first: a commit landing after it changes the version, one landing before it is in MAX(id)
+    private static long[] versionAndMaxId(ConnectionPool.PooledConnection conn) throws SQLException {
+        long version = dataVersion(conn);
+        return new long[] {version, maxNewsId(conn)};
+    }
+
+    // Record the version the window is complete at; it was just read, so hotRange need not read it again yet
+    private void markWindowVersion(long version) {
+        try {
+            pool.withMonitor(conn -> {
+                hotWindowVersion = version;
+                observedVersion = version;
+                observedAt = System.currentTimeMillis();
+                return null;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // The window's rows in [startTime, endTime], or null if it is disabled, does not reach back that far, or
+    // may be missing rows written outside this handler (seen through data_version, HOT_WINDOW_CHECK_MILLIS late
+    // at most). The version is read before the window, so a reload is never half seen.
+    private List<News> hotRange(String category, Timestamp startTime, Timestamp endTime) {
+        long windowVersion = hotWindowVersion;
+        HotNewsWindow window = hotWindow;
+        if (window == null || windowVersion < 0) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now - observedAt >= HOT_WINDOW_CHECK_MILLIS) {
+            try {
+                pool.withMonitor(conn -> {
+                    observedVersion = dataVersion(conn);
+                    observedAt = now;
+                    return null;
+                });
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+        if (observedVersion != windowVersion) {
+            return null;
+        }
+        return window.range(category, startTime, endTime);
     }
 
     // Ensure the database directory exists
     private void ensureDatabaseDirectory() {
-        File databaseDir = new File(DB_DIRECTORY);
+        File databaseDir = new File(databaseDirectory);
         if (!databaseDir.exists()) {
             if (databaseDir.mkdirs()) {
-                System.out.println("Database directory created: " + DB_DIRECTORY);
+                System.out.println("Database directory created: " + databaseDirectory);
             } else {
-                System.err.println("Failed to create database directory: " + DB_DIRECTORY);
+                System.err.println("Failed to create database directory: " + databaseDirectory);
             }
         }
     }
 
     // Initialize the SQLite database and ensure the table structure exists
     private void initDatabase() {
-        // Use try-with-resources to ensure the connection is automatically closed
-        try (Connection conn = DriverManager.getConnection(DB_URL)) {
-
-            // Define the SQL statement to create the 'news' table if it doesn't exist
-            String createTableSQL = """
-                    CREATE TABLE IF NOT EXISTS news (
-                        id INTEGER PRIMARY KEY AUTOINCREMENT,   -- Unique identifier for each news entry
-                        news_time TIMESTAMP NOT NULL,           -- Timestamp of the news (required field)
-                        category TEXT,                          -- Category of the news (optional)
-                        content TEXT                            -- Main content of the news (optional)
+        try {
+            // Schema changes run on the writer connection, so they never race a pipelined commit
+            pool.withWriter(conn -> {
+                createSchema(conn.raw());
+                return null;
+            });
+        } catch (SQLException e) {
+            // Print the stack trace if any SQL exception occurs (e.g., connection failure, syntax error)
+            e.printStackTrace();
+        }
+    }
+
+    // Create the tables, indexes and full-text index if they don't exist yet
+    private void createSchema(Connection conn) throws SQLException {
+        // Define the SQL statement to create the 'news' table if it doesn't exist
+        String createTableSQL = NEWS_TABLE_SQL;
+
+        // Use another try-with-resources block to create and execute the SQL statement
+        try (Statement stmt = conn.createStatement()) {
+            // Execute the SQL command to create the table
+            stmt.execute(createTableSQL);
+
+            // Databases created before dedup_key existed need the column added and backfilled
+            if (!hasColumn(conn, "news", "dedup_key")) {
+                migrateDedupKeys(conn);
+            }
+
+            // Source item ids were not stored before; existing rows keep 0 (unknown)
+            if (!hasColumn(conn, "news", "source_id")) {
+                stmt.execute("ALTER TABLE news ADD COLUMN source_id INTEGER NOT NULL DEFAULT 0");
+            }
+
+            // The unique index is what makes 'INSERT OR IGNORE' actually skip re-polled items
+            stmt.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_news_dedup_key ON news (dedup_key)");
+
+            // Time-window queries (optionally per category) range-scan these instead of the whole table
+            stmt.execute(TIME_INDEX_SQL);
+            stmt.execute(CATEGORY_TIME_INDEX_SQL);
+
+            // Per-feed watermark so a restarted poller only processes items newer than what is stored
+            stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS feed_watermarks (
+                        feed_key TEXT PRIMARY KEY,              -- Feed identifier, e.g. 'sina:152'
+                        last_id INTEGER NOT NULL,               -- Highest source item id stored
+                        last_time TIMESTAMP NOT NULL,           -- Newest create_time stored
+                        updated_at TIMESTAMP NOT NULL           -- When the watermark last moved
                     );
-                    """;
+                    """);
 
-            // Use another try-with-resources block to create and execute the SQL statement
-            try (Statement stmt = conn.createStatement()) {
-                // Execute the SQL command to create the table
-                stmt.execute(createTableSQL);
+            // Registry of monthly archive partitions, see NewsArchive
+            stmt.execute(NewsArchive.PARTITIONS_TABLE_SQL);
+            if (!hasColumn(conn, "news_partitions", "exported_rows")) {
+                stmt.execute("ALTER TABLE news_partitions ADD COLUMN exported_rows INTEGER NOT NULL DEFAULT -1");
+            }
+
+            // Print a success message if the table is created or already exists
+            System.out.println("Database initialized successfully.");
+        }
+
+        initFullTextIndex(conn);
+    }
 
-                // Print a success message if the table is created or already exists
-                System.out.println("Database initialized successfully.");
+    /**
+     * Create the FTS5 index over news content and keep it in sync through triggers. It is an external-content
+     * table, so the text is stored once (in 'news') and the index only holds tokens. The trigram tokenizer is
+     * used because Sina content is Chinese and has no spaces between words.
+     */
+    private void initFullTextIndex(Connection conn) {
+        try (Statement stmt = conn.createStatement()) {
+            boolean existed;
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'news_fts'")) {
+                existed = rs.next();
             }
 
+            stmt.execute("""
+                    CREATE VIRTUAL TABLE IF NOT EXISTS news_fts USING fts5(
+                        content, category,
+                        content='news', content_rowid='id',
+                        tokenize='trigram'
+                    );
+                    """);
+
+            // Mirror every insert, delete and update of 'news' into the index
+            stmt.execute(FTS_INSERT_TRIGGER_SQL);
+            stmt.execute("""
+                    CREATE TRIGGER IF NOT EXISTS news_fts_delete AFTER DELETE ON news BEGIN
+                        INSERT INTO news_fts (news_fts, rowid, content, category)
+                        VALUES ('delete', old.id, old.content, old.category);
+                    END;
+                    """);
+            stmt.execute("""
+                    CREATE TRIGGER IF NOT EXISTS news_fts_update AFTER UPDATE OF content, category ON news BEGIN
+                        INSERT INTO news_fts (news_fts, rowid, content, category)
+                        VALUES ('delete', old.id, old.content, old.category);
+                        INSERT INTO news_fts (rowid, content, category) VALUES (new.id, new.content, new.category);
+                    END;
+                    """);
+
+            // Index rows that were stored before the full-text index existed
+            if (!existed) {
+                System.out.println("Building full-text index for existing news...");
+                stmt.execute("INSERT INTO news_fts (news_fts) VALUES ('rebuild')");
+            }
+            ftsAvailable = true;
         } catch (SQLException e) {
-            // Print the stack trace if any SQL exception occurs (e.g., connection failure, syntax error)
+            System.err.println("FTS5 is not available; searchNews will scan the time window instead.");
             e.printStackTrace();
         }
     }
 
+    /**
+     * Full-text search: returns up to 'limit' news whose content or category contains every whitespace-separated
+     * term of the query, best matches (BM25) first. startTime/endTime may be null for an open-ended window.
+     * Terms shorter than three characters cannot use the trigram index, so such queries fall back to a LIKE
+     * scan of the time window, newest first. Archived months are not in the index; while the live table has
+     * fewer than 'limit' matches, the rest is filled from the partitions the window overlaps (see
+     * NewsArchive.search), newest first after the live matches.
+     */
+    public List<News> searchNews(String query, Timestamp startTime, Timestamp endTime, int limit) {
+        List<News> newsList = new ArrayList<>();
+        List<String> terms = new ArrayList<>();
+        boolean indexable = ftsAvailable;
+        for (String term : query.trim().split("\\s+")) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+                if (term.codePointCount(0, term.length()) < FTS_MIN_TERM_LENGTH) {
+                    indexable = false;
+                }
+            }
+        }
+        if (terms.isEmpty()) {
+            return newsList;
+        }
+
+        StringBuilder querySQL = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+        if (indexable) {
+            // Quote each term so user input is matched literally, not parsed as FTS5 query syntax
+            StringBuilder match = new StringBuilder();
+            for (String term : terms) {
+                match.append(match.length() == 0 ? "" : " ").append('"').append(term.replace("\"", "\"\"")).append('"');
+            }
+            querySQL.append("SELECT n.news_time, n.category, n.content, n.source_id FROM news_fts JOIN news n ON n.id = news_fts.rowid")
+                    .append(" WHERE news_fts MATCH ?");
+            params.add(match.toString());
+        } else {
+            querySQL.append("SELECT n.news_time, n.category, n.content, n.source_id FROM news n WHERE 1 = 1");
+            for (String term : terms) {
+                querySQL.append(LIKE_TERM_SQL);
+                params.add(likePattern(term));
+                params.add(likePattern(term));
+            }
+        }
+        if (startTime != null) {
+            querySQL.append(" AND n.news_time >= ?");
+            params.add(startTime);
+        }
+        if (endTime != null) {
+            querySQL.append(" AND n.news_time <= ?");
+            params.add(endTime);
+        }
+        querySQL.append(indexable ? " ORDER BY bm25(news_fts)" : " ORDER BY n.news_time DESC").append(" LIMIT ?");
+        params.add(limit);
+
+        try {
+            pool.withReader(conn -> {
+                PreparedStatement pstmt = conn.prepare(querySQL.toString());
+                for (int i = 0; i < params.size(); i++) {
+                    Object param = params.get(i);
+                    if (param instanceof Timestamp) {
+                        pstmt.setTimestamp(i + 1, (Timestamp) param);
+                    } else if (param instanceof Integer) {
+                        pstmt.setInt(i + 1, (Integer) param);
+                    } else {
+                        pstmt.setString(i + 1, (String) param);
+                    }
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        newsList.add(readNews(rs));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        long searchStart = startTime == null ? Long.MIN_VALUE : startTime.getTime();
+        if (newsList.size() < limit && archive.isArchived(searchStart)) {
+            long searchEnd = endTime == null ? Long.MAX_VALUE : endTime.getTime();
+            newsList.addAll(archive.search(terms, searchStart, searchEnd, limit - newsList.size()));
+        }
+        return newsList;
+    }
+
+    // A LIKE pattern matching the term literally anywhere in the text, for use with ESCAPE '\'
+    static String likePattern(String term) {
+        return "%" + term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
     // Method to save a news entry into the database
     public void saveNews(Timestamp news_time, String category, String content) {
-        // SQL statement for inserting a new row into the 'news' table
-        // The 'INSERT OR IGNORE' clause ensures that duplicate entries (based on a unique constraint) are ignored
-        String insertSQL = "INSERT OR IGNORE INTO news (news_time, category, content) VALUES (?, ?, ?)";
+        try {
+            // Runs on the shared writer connection through the batch path, which also routes rows of archived
+            // months to their partition and updates the hot window (the single-row API carries no source id)
+            CommittedNews committed = commitNews(List.of(new News(news_time, category, content)), null);
+
+            // Per-row messages are opt-in (logItems); the metrics carry the counts
+            if (PipelineMetrics.global().isItemLogging()) {
+                System.out.println(committed.archived() > 0 ? "News saved to archive."
+                        : committed.inserted() > 0 ? "News saved successfully." : "Duplicate news ignored.");
+            }
+        } catch (SQLException e) {
+            // Print the stack trace to help debug SQL-related exceptions
+            e.printStackTrace();
+        }
+    }
+
+    // Save a batch of news entries in a single transaction (one connection, one commit)
+    public void saveNews(List<News> newsBatch) {
+        if (newsBatch.isEmpty()) {
+            return;
+        }
+
+        // A failed batch is rolled back as a whole by inTransaction
+        try {
+            commitNews(newsBatch, null);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Splits rows at the archive boundary: late arrivals for archived months go to archived, the rest, which
+     * belong in the live table, are returned (rows itself if none are old). Must run under the writer lock,
+     * which archiving holds while it moves a month and raises the boundary.
+     */
+    private List<News> routeArchived(List<News> rows, List<News> archived) {
+        List<News> live = null;
+        for (int i = 0; i < rows.size(); i++) {
+            News news = rows.get(i);
+            if (archive.isArchived(news.getNewsTimeMillis())) {
+                if (live == null) {
+                    live = new ArrayList<>(rows.subList(0, i));
+                }
+                archived.add(news);
+            } else if (live != null) {
+                live.add(news);
+            }
+        }
+        return live == null ? rows : live;
+    }
 
-        // Use try-with-resources to ensure the database connection and prepared statement are closed automatically
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-            PreparedStatement pstmt = conn.prepareStatement(insertSQL)) {
+    /**
+     * Moves every month older than the given number of whole months out of the live table into its own
+     * partition file, then compacts the live database. With exportDirectory set, each archived month is
+     * also written there as a compressed columnar file, again whenever late rows have changed the month.
+     * The delete trigger drops moved rows from the full-text index; searchNews finds them by scanning the
+     * partitions instead. Returns the number of rows moved.
+     */
+    public long archiveOlderThan(int months, File exportDirectory) throws SQLException, IOException {
+        long moved = archive.archiveBefore(YearMonth.now(ZoneId.systemDefault()).minusMonths(months));
+        if (moved > 0) {
+            // Give the freed pages back to the file system and merge the index segments left behind
+            pool.withWriter(conn -> {
+                // Separate statements: VACUUM fails while the optimize statement is still open on the connection
+                if (ftsAvailable) {
+                    try (Statement stmt = conn.raw().createStatement()) {
+                        stmt.execute("INSERT INTO news_fts (news_fts) VALUES ('optimize')");
+                    }
+                }
+                try (Statement stmt = conn.raw().createStatement()) {
+                    stmt.execute("VACUUM");
+                }
+                return null;
+            });
+        }
+
+        if (exportDirectory != null) {
+            archive.exportChanged(exportDirectory);
+        }
+        return moved;
+    }
+
+    /**
+     * Streams the news within [startTime, endTime], archived months included, to a gzip-compressed file in
+     * time order: NDJSON for names ending in .ndjson.gz or .jsonl.gz, ColumnarNewsFile for .ncol.gz.
+     * Returns the number of rows written.
+     */
+    public long exportNews(Timestamp startTime, Timestamp endTime, File target) throws IOException {
+        return new NewsBulkTransfer(pool, this).exportNews(startTime, endTime, target);
+    }
 
-            // Set the value for the 'news_time' column (1st placeholder '?')
-            pstmt.setTimestamp(1, news_time);
+    /**
+     * Loads a file written by exportNews in batched transactions, with the time indexes built after the load;
+     * rows are searchable as soon as their batch commits. Duplicates of stored rows are skipped. Returns the
+     * number of rows inserted.
+     */
+    public long importNews(File source) throws IOException, SQLException {
+        return new NewsBulkTransfer(pool, this).importNews(source);
+    }
+
+    public NewsArchive getArchive() {
+        return archive;
+    }
+
+    /**
+     * What commitNews did with a batch: the rows that went to the live table with the insert count of each
+     * ('INSERT OR IGNORE' reports 0 for rows skipped by the unique dedup key), and how many rows of archived
+     * months were added to their partitions.
+     */
+    record CommittedNews(List<News> live, int[] results, int archived) {
+        int inserted() {
+            int inserted = 0;
+            for (int result : results) {
+                if (result > 0) {
+                    inserted++;
+                }
+            }
+            return inserted;
+        }
+    }
 
-            // Set the value for the 'category' column (2nd placeholder '?')
-            pstmt.setString(2, category);
+    /**
+     * Commits a batch on the writer connection. Late rows for archived months are stored in their partitions
+     * first; the rest are inserted into the live table in one transaction, together with whatever
+     * alsoInTransaction writes (null for nothing), and mirrored into the hot window.
+     */
+    CommittedNews commitNews(List<News> rows, ConnectionPool.SqlWork<?> alsoInTransaction) throws SQLException {
+        // The writer lock is held throughout: archiving cannot move a month between the boundary check and the
+        // insert, and this handler's commits reach the hot window in id order
+        return pool.withWriter(writer -> {
+            List<News> archivedRows = new ArrayList<>();
+            List<News> live = routeArchived(rows, archivedRows);
+            int archived = archivedRows.isEmpty() ? 0 : archive.save(archivedRows);
+            if (live.isEmpty() && alsoInTransaction == null) {
+                return new CommittedNews(live, new int[0], archived);
+            }
 
-            // Set the value for the 'content' column (3rd placeholder '?')
-            pstmt.setString(3, content);
+            long[] maxIds = new long[2];
+            int[] results = pool.inTransaction(conn -> {
+                maxIds[0] = maxNewsId(conn);
+                PreparedStatement pstmt = conn.prepare(INSERT_NEWS_SQL);
+                int[] inserted;
+                try {
+                    for (News news : live) {
+                        bindNews(pstmt, news);
+                        pstmt.addBatch();
+                    }
+                    inserted = pstmt.executeBatch();
+                } catch (SQLException e) {
+                    // The statement is cached, so drop the rows it still holds; inTransaction rolls back
+                    pstmt.clearBatch();
+                    throw e;
+                }
+                if (alsoInTransaction != null) {
+                    alsoInTransaction.run(conn);
+                }
+                maxIds[1] = maxNewsId(conn);
+                return inserted;
+            });
+            addCommitted(live, results, maxIds[0], maxIds[1]);
+            return new CommittedNews(live, results, archived);
+        });
+    }
 
-            // Execute the SQL INSERT query
-            pstmt.executeUpdate();
+    // Mirror the rows of a committed batch that were actually inserted (not ignored as duplicates) into memory,
+    // or reload the window if rows of another writer were committed before or right after this batch
+    private void addCommitted(List<News> batch, int[] results, long maxIdBefore, long maxIdAfter) {
+        if (hotWindowMillis <= 0) {
+            return;
+        }
+        if (maxIdBefore != hotWindowMaxId) {
+            loadHotWindow();
+            return;
+        }
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] > 0) {
+                hotWindow.add(batch.get(i));
+            }
+        }
+        hotWindowMaxId = maxIdAfter;
 
-            // Print a success message if the operation is successful
-            System.out.println("News saved successfully.");
+        // The commit changed data_version; take the new value as the window's own
+        try {
+            long[] snapshot = pool.withMonitor(DatabaseHandler::versionAndMaxId);
+            if (snapshot[1] != maxIdAfter) {
+                loadHotWindow();
+            } else {
+                markWindowVersion(snapshot[0]);
+            }
         } catch (SQLException e) {
-            // Print the stack trace to help debug SQL-related exceptions
             e.printStackTrace();
+            hotWindowVersion = -1;
         }
     }
 
-    // Method to fetch all news records from the database
-    public List<News> fetchNews() {
-        // Create a list to store the retrieved news entries
-        List<News> newsList = new ArrayList<>();
+    // The in-memory window of recent news, or null if disabled
+    public HotNewsWindow getHotWindow() {
+        return hotWindow;
+    }
 
-        // SQL query to select all records from the 'news' table
-        String querySQL = "SELECT news_time, category, content FROM news";
+    // Bind a News onto INSERT_NEWS_SQL, including its dedup key
+    static void bindNews(PreparedStatement pstmt, News news) throws SQLException {
+        pstmt.setLong(1, news.getNewsTimeMillis());
+        pstmt.setString(2, news.getCategory());
+        pstmt.setString(3, news.getContent());
+        pstmt.setString(4, computeDedupKey(news.getNewsTimeMillis(), news.getContent()));
+        pstmt.setLong(5, news.getSourceId());
+    }
 
-        // Use try-with-resources to ensure the database connection, statement, and result set are closed automatically
-        try (Connection conn = DriverManager.getConnection(DB_URL); // Establish connection to the database
-            Statement stmt = conn.createStatement(); // Create a statement for executing the query
-            ResultSet rs = stmt.executeQuery(querySQL)) { // Execute the SQL query and get the result set
+    /**
+     * Content-derived deduplication key: the first 128 bits of SHA-256(news_time millis + '\n' + content), as hex.
+     * The same feed item re-polled from Sina always maps to the same key.
+     */
+    static String computeDedupKey(Timestamp newsTime, String content) {
+        return computeDedupKey(newsTime != null ? newsTime.getTime() : 0L, content);
+    }
+
+    static String computeDedupKey(long millis, String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(Long.toString(millis).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            if (content != null) {
+                digest.update(content.getBytes(StandardCharsets.UTF_8));
+            }
+            byte[] hash = digest.digest();
+            StringBuilder hex = new StringBuilder(32);
+            for (int i = 0; i < 16; i++) {
+                hex.append(Character.forDigit((hash[i] >> 4) & 0xF, 16));
+                hex.append(Character.forDigit(hash[i] & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE is required to ship SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Build a News from a row selecting news_time, category, content and source_id
+    static News readNews(ResultSet rs) throws SQLException {
+        return new News(rs.getTimestamp("news_time"), rs.getString("category"), rs.getString("content"),
+                rs.getLong("source_id"));
+    }
 
-            // Iterate through the result set to process each row
+    // Check whether a table already has the given column
+    private static boolean hasColumn(Connection conn, String table, String column) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
             while (rs.next()) {
-                // Retrieve the 'news_time' column as a Timestamp
-                Timestamp news_time = rs.getTimestamp("news_time");
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
 
-                // Retrieve the 'category' column as a String
-                String category = rs.getString("category");
+    /**
+     * Adds dedup_key to a pre-existing 'news' table, then walks it once in id order: the first row for each key
+     * is kept and backfilled, later rows with the same key are deleted. Runs in a single transaction.
+     */
+    private void migrateDedupKeys(Connection conn) throws SQLException {
+        System.out.println("Migrating news table: adding dedup_key and collapsing duplicates...");
+        boolean previousAutoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
 
-                // Retrieve the 'content' column as a String
-                String content = rs.getString("content");
+        try {
+            // The column has to exist before the backfill UPDATE can be prepared against it
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ALTER TABLE news ADD COLUMN dedup_key TEXT");
+            }
+            backfillDedupKeys(conn);
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(previousAutoCommit);
+        }
+    }
+
+    // Second half of migrateDedupKeys, run inside its transaction once the column exists
+    private void backfillDedupKeys(Connection conn) throws SQLException {
+        Set<String> seenKeys = new HashSet<>();
+        long kept = 0;
+        long removed = 0;
 
-                // Create a new News object and add it to the list
-                newsList.add(new News(news_time, category, content));
+        try (PreparedStatement select = conn.prepareStatement(
+                     "SELECT id, news_time, content FROM news WHERE id > ? ORDER BY id LIMIT ?");
+             PreparedStatement update = conn.prepareStatement("UPDATE news SET dedup_key = ? WHERE id = ?");
+             PreparedStatement delete = conn.prepareStatement("DELETE FROM news WHERE id = ?")) {
+
+            // Page by id so the read cursor is closed before the page's updates and deletes are applied
+            long lastId = 0;
+            while (true) {
+                select.setLong(1, lastId);
+                select.setInt(2, MIGRATION_PAGE_SIZE);
+                int rows = 0;
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        rows++;
+                        lastId = rs.getLong("id");
+                        String key = computeDedupKey(rs.getTimestamp("news_time"), rs.getString("content"));
+                        if (seenKeys.add(key)) {
+                            update.setString(1, key);
+                            update.setLong(2, lastId);
+                            update.addBatch();
+                            kept++;
+                        } else {
+                            delete.setLong(1, lastId);
+                            delete.addBatch();
+                            removed++;
+                        }
+                    }
+                }
+                update.executeBatch();
+                delete.executeBatch();
+                if (rows < MIGRATION_PAGE_SIZE) {
+                    break;
+                }
             }
+        }
+        System.out.println("Dedup migration finished: kept " + kept + " rows, removed " + removed + " duplicates.");
+    }
+
+    /**
+     * Load the persisted watermark of a feed, or an empty one if the feed has none yet. Stored rows do not
+     * record which feed they came from, so a new feed starts empty rather than behind other feeds' newest
+     * row; its first poll only reads the first pages, and items already stored are dropped by the dedup key.
+     */
+    public FeedWatermark loadWatermark(String feedKey) {
+        try {
+            return pool.withReader(conn -> {
+                PreparedStatement pstmt = conn.prepare("SELECT last_id, last_time FROM feed_watermarks WHERE feed_key = ?");
+                pstmt.setString(1, feedKey);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        return new FeedWatermark(rs.getLong("last_id"), rs.getTimestamp("last_time").getTime());
+                    }
+                }
+                return FeedWatermark.empty();
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return FeedWatermark.empty();
+    }
+
+    // Persist a feed's watermark, replacing the previous value
+    public void saveWatermark(String feedKey, FeedWatermark watermark) {
+        try {
+            pool.withWriter(conn -> {
+                PreparedStatement pstmt = conn.prepare(UPSERT_WATERMARK_SQL);
+                bindWatermark(pstmt, feedKey, watermark);
+                return pstmt.executeUpdate();
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Shared by saveWatermark and NewsWriter, which commits checkpoints in the same transaction as the rows
+    static final String UPSERT_WATERMARK_SQL =
+            "INSERT OR REPLACE INTO feed_watermarks (feed_key, last_id, last_time, updated_at) VALUES (?, ?, ?, ?)";
+
+    static void bindWatermark(PreparedStatement pstmt, String feedKey, FeedWatermark watermark) throws SQLException {
+        pstmt.setString(1, feedKey);
+        pstmt.setLong(2, watermark.getLastId());
+        pstmt.setTimestamp(3, new Timestamp(watermark.getLastTimeMillis()));
+        pstmt.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+    }
+
+    // Open a batched write pipeline with the default batch size, flush interval and queue capacity
+    public NewsWriter openWriter() throws SQLException {
+        return openWriter(DEFAULT_WRITER_BATCH_SIZE, DEFAULT_WRITER_FLUSH_MILLIS, DEFAULT_WRITER_QUEUE_CAPACITY);
+    }
+
+    // Open a batched write pipeline: a bounded queue feeding the shared writer connection
+    public NewsWriter openWriter(int batchSize, long flushIntervalMillis, int queueCapacity) throws SQLException {
+        return new NewsWriter(pool, this, batchSize, flushIntervalMillis, queueCapacity);
+    }
+
+    // Method to fetch all news records from the database, archived months included
+    public List<News> fetchNews() {
+        // Create a list to store the retrieved news entries, starting with those of the archive partitions
+        List<News> newsList = new ArrayList<>(archive.fetch(Long.MIN_VALUE, Long.MAX_VALUE));
+
+        // SQL query to select all records from the 'news' table
+        String querySQL = "SELECT news_time, category, content, source_id FROM news";
+
+        // Borrow a pooled read connection; try-with-resources closes the result set, the statement stays cached
+        try {
+            pool.withReader(conn -> {
+                try (ResultSet rs = conn.prepare(querySQL).executeQuery()) { // Execute the SQL query and get the result set
+
+                    // Iterate through the result set to process each row
+                    while (rs.next()) {
+                        // Retrieve the 'news_time' column as a Timestamp
+                        Timestamp news_time = rs.getTimestamp("news_time");
+
+                        // Retrieve the 'category' column as a String
+                        String category = rs.getString("category");
+
+                        // Retrieve the 'content' column as a String
+                        String content = rs.getString("content");
+
+                        // Retrieve the 'source_id' column (0 if unknown)
+                        long sourceId = rs.getLong("source_id");
+
+                        // Create a new News object and add it to the list
+                        newsList.add(new News(news_time, category, content, sourceId));
+                    }
+                }
+                return null;
+            });
         } catch (SQLException e) {
             // Print the stack trace if any SQL-related error occurs
             e.printStackTrace();
@@ -124,28 +879,208 @@ public class DatabaseHandler {
     // Fetch news from the database within a specified time window
     public List<News> fetchNewsByTimeWindow(Timestamp startTime, Timestamp endTime) {
         List<News> newsList = new ArrayList<>();
-        String querySQL = "SELECT news_time, category, content FROM news WHERE news_time BETWEEN ? AND ?";
+        String querySQL = "SELECT news_time, category, content, source_id FROM news WHERE news_time BETWEEN ? AND ?";
+
+        // Windows inside the last hour are answered from memory; only MAX(id) is read from SQLite
+        List<News> recent = hotRange(null, startTime, endTime);
+        if (recent != null) {
+            return recent;
+        }
+
+        // Months before the archive boundary are read from their partition files, the rest from 'news'
+        if (archive.isArchived(startTime.getTime())) {
+            newsList.addAll(archive.fetch(startTime.getTime(), endTime.getTime()));
+            if (archive.isArchived(endTime.getTime())) {
+                return newsList;
+            }
+        }
 
-        // Use try-with-resources to ensure resources are closed
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement pstmt = conn.prepareStatement(querySQL)) {
+        // Runs on a pooled read connection, so it does not wait for (or block) ingestion
+        try {
+            pool.withReader(conn -> {
+                PreparedStatement pstmt = conn.prepare(querySQL);
 
-            // Set the parameters for the prepared statement
-            pstmt.setTimestamp(1, startTime); // Start of the time window
-            pstmt.setTimestamp(2, endTime);  // End of the time window
+                // Set the parameters for the prepared statement
+                pstmt.setTimestamp(1, startTime); // Start of the time window
+                pstmt.setTimestamp(2, endTime);  // End of the time window
 
-            // Execute the query and process the result set
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Timestamp news_time = rs.getTimestamp("news_time");
-                    String category = rs.getString("category");
-                    String content = rs.getString("content");
-                    newsList.add(new News(news_time, category, content));
+                // Execute the query and process the result set
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        newsList.add(readNews(rs));
+                    }
                 }
-            }
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return newsList;
     }
+
+    /**
+     * Bulk-loads the news within [startTime, endTime] into primitive columns, ordered by news_time, for
+     * in-memory analytics over millions of rows. Contents are loaded only if withContent is set; without them
+     * a row costs about 20 bytes. Months before the archive boundary are read from their partitions first.
+     * Returns an empty NewsColumns if the query fails.
+     */
+    public NewsColumns loadColumns(Timestamp startTime, Timestamp endTime, boolean withContent) {
+        String countSQL = "SELECT COUNT(*) FROM news WHERE news_time BETWEEN ? AND ?";
+        String querySQL = "SELECT news_time, category, source_id" + (withContent ? ", content" : "")
+                + " FROM news WHERE news_time BETWEEN ? AND ? ORDER BY news_time, id";
+
+        // Archived rows all precede the live ones, so reading them first keeps the columns in time order
+        List<News> archived = archive.isArchived(startTime.getTime())
+                ? archive.fetch(startTime.getTime(), endTime.getTime()) : List.of();
+
+        try {
+            return pool.withReader(conn -> {
+                // Size the arrays once from the index instead of growing them while reading
+                PreparedStatement count = conn.prepare(countSQL);
+                count.setTimestamp(1, startTime);
+                count.setTimestamp(2, endTime);
+                int expected;
+                try (ResultSet rs = count.executeQuery()) {
+                    expected = rs.next() ? rs.getInt(1) : 0;
+                }
+
+                NewsColumns columns = new NewsColumns(archived.size() + expected, withContent);
+                for (News news : archived) {
+                    columns.add(news.getNewsTimeMillis(), news.getCategory(), withContent ? news.getContent() : null,
+                            news.getSourceId());
+                }
+                PreparedStatement pstmt = conn.prepare(querySQL);
+                pstmt.setTimestamp(1, startTime);
+                pstmt.setTimestamp(2, endTime);
+                pstmt.setFetchSize(DEFAULT_STREAM_PAGE_SIZE);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        // news_time is stored as epoch millis, so read it without allocating a Timestamp
+                        columns.add(rs.getLong("news_time"), rs.getString("category"),
+                                withContent ? rs.getString("content") : null, rs.getLong("source_id"));
+                    }
+                }
+                columns.trimToSize();
+                return columns;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new NewsColumns(0, withContent);
+    }
+
+    // Stream news within a time window, ordered by news_time, using the default page size
+    public Stream<News> streamNewsByTimeWindow(Timestamp startTime, Timestamp endTime) {
+        return streamNewsByTimeWindow(null, startTime, endTime, DEFAULT_STREAM_PAGE_SIZE);
+    }
+
+    /**
+     * Lazily streams news within [startTime, endTime] ordered by (news_time, id), optionally restricted to
+     * one category. Rows are read in pages of pageSize using keyset pagination, so only one page is held in
+     * memory and no connection is held between pages; the stream can be abandoned at any point.
+     */
+    public Stream<News> streamNewsByTimeWindow(String category, Timestamp startTime, Timestamp endTime, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+        List<News> recent = hotRange(category, startTime, endTime);
+        if (recent != null) {
+            return recent.stream();
+        }
+        Stream<News> live = StreamSupport.stream(new KeysetPageSpliterator(pool, category, startTime, endTime, pageSize), false);
+        if (!archive.isArchived(startTime.getTime())) {
+            return live;
+        }
+
+        // Archived months first, one partition at a time: flatMap only reads a partition once it is reached
+        Stream<News> archived = archive.overlapping(startTime.getTime(), endTime.getTime()).stream()
+                .flatMap(partition -> archive.fetch(Math.max(startTime.getTime(), partition.getStartMillis()),
+                        Math.min(endTime.getTime(), partition.getEndMillis() - 1)).stream())
+                .filter(news -> category == null || category.equals(news.getCategory()));
+        return Stream.concat(archived, live);
+    }
+
+    /**
+     * Walks the (news_time, id) index one page at a time: each page resumes strictly after the last
+     * row of the previous one, so paging cost does not grow with the offset.
+     */
+    private static final class KeysetPageSpliterator extends Spliterators.AbstractSpliterator<News> {
+        private final ConnectionPool pool;
+        private final String category;
+        private final Timestamp endTime;
+        private final int pageSize;
+        private final Deque<News> page = new ArrayDeque<>();
+
+        // Position of the last row handed out; the next page starts after it
+        private Timestamp lastTime;
+        private long lastId = Long.MIN_VALUE;
+        private boolean exhausted = false;
+
+        KeysetPageSpliterator(ConnectionPool pool, String category, Timestamp startTime, Timestamp endTime, int pageSize) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.pool = pool;
+            this.category = category;
+            this.lastTime = startTime;
+            this.endTime = endTime;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super News> action) {
+            if (page.isEmpty() && !exhausted) {
+                fetchNextPage();
+            }
+            News next = page.poll();
+            if (next == null) {
+                return false;
+            }
+            action.accept(next);
+            return true;
+        }
+
+        private void fetchNextPage() {
+            // The first page includes rows at exactly startTime (lastId is still Long.MIN_VALUE)
+            String querySQL = "SELECT id, news_time, category, content, source_id FROM news"
+                    + " WHERE news_time >= ? AND news_time <= ? AND (news_time > ? OR id > ?)"
+                    + (category != null ? " AND category = ?" : "")
+                    + " ORDER BY news_time, id LIMIT ?";
+
+            // Each page borrows a reader only for the duration of its query
+            try {
+                pool.withReader(conn -> {
+                    PreparedStatement pstmt = conn.prepare(querySQL);
+
+                    int index = 1;
+                    pstmt.setTimestamp(index++, lastTime);
+                    pstmt.setTimestamp(index++, endTime);
+                    pstmt.setTimestamp(index++, lastTime);
+                    pstmt.setLong(index++, lastId);
+                    if (category != null) {
+                        pstmt.setString(index++, category);
+                    }
+                    pstmt.setInt(index, pageSize);
+                    pstmt.setFetchSize(pageSize);
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            lastId = rs.getLong("id");
+                            News news = readNews(rs);
+                            lastTime = news.getNewsTime();
+                            page.add(news);
+                        }
+                    }
+                    return null;
+                });
+            } catch (SQLException e) {
+                // Same policy as the list-based fetches: report and end the result early
+                e.printStackTrace();
+                exhausted = true;
+                return;
+            }
+
+            if (page.size() < pageSize) {
+                exhausted = true;
+            }
+        }
+    }
 }
@@ -0,0 +1,204 @@
+import java.net.URI;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs fetch-and-parse for many feed URLs concurrently on a bounded thread pool.
+ *
+ * Each host gets its own concurrency limit so one source cannot take every worker, and a poll
+ * cycle waits at most timeoutMillis for its results. Results are handed to the caller in completion
+ * order, so persistence starts as soon as the first response is parsed instead of after the slowest.
+ */
+public class FeedFetcher implements AutoCloseable {
+
+    /**
+     * Downloads one URL and turns it into news items; thrown exceptions become failed results.
+     */
+    public interface FetchTask {
+        List<News> fetchAndParse(String url) throws Exception;
+    }
+
+    /**
+     * Receives each result on the calling thread, e.g. to queue items for the NewsWriter.
+     */
+    public interface ResultHandler {
+        void handle(FetchResult result) throws InterruptedException;
+    }
+
+    /**
+     * Outcome of fetching one URL: either its items or the error that stopped it.
+     */
+    public static final class FetchResult {
+        private final String url;
+        private final List<News> items;
+        private final Exception error;
+        private final long elapsedMillis;
+
+        FetchResult(String url, List<News> items, Exception error, long elapsedMillis) {
+            this.url = url;
+            this.items = items;
+            this.error = error;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public List<News> getItems() {
+            return items;
+        }
+
+        public Exception getError() {
+            return error;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final int perHostLimit;
+    private final long timeoutMillis;
+    private final ConcurrentMap<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+    public FeedFetcher(int threads, int perHostLimit, long timeoutMillis) {
+        if (threads <= 0 || perHostLimit <= 0 || timeoutMillis <= 0) {
+            throw new IllegalArgumentException("threads, perHostLimit and timeoutMillis must be positive");
+        }
+        this.perHostLimit = perHostLimit;
+        this.timeoutMillis = timeoutMillis;
+
+        // Bounded pool and bounded backlog: a flood of URLs is rejected rather than queued without limit
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(threads * 16),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "feed-fetch-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Fetches every URL concurrently and passes each result to the handler as it completes.
+     * URLs still running when the cycle's timeout expires are cancelled and reported as failed.
+     * Returns the number of URLs that were fetched and parsed successfully.
+     */
+    public int fetchAll(Collection<String> urls, FetchTask task, ResultHandler handler) throws InterruptedException {
+        if (urls.isEmpty()) {
+            return 0;
+        }
+
+        CompletionService<FetchResult> results = new ExecutorCompletionService<>(executor);
+        Map<Future<FetchResult>, String> pending = new HashMap<>();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        int succeeded = 0;
+
+        for (String url : urls) {
+            try {
+                pending.put(results.submit(() -> runLimited(url, task, deadline)), url);
+            } catch (RejectedExecutionException e) {
+                handler.handle(new FetchResult(url, Collections.emptyList(), e, 0));
+            }
+        }
+
+        // Drain the results channel in completion order until everything finished or the deadline passed
+        while (!pending.isEmpty()) {
+            long remaining = deadline - System.currentTimeMillis();
+            Future<FetchResult> done = remaining > 0 ? results.poll(remaining, TimeUnit.MILLISECONDS) : null;
+            if (done == null) {
+                break;
+            }
+            String url = pending.remove(done);
+            FetchResult result;
+            try {
+                result = done.get();
+            } catch (Exception e) {
+                result = new FetchResult(url, Collections.emptyList(), e, 0);
+            }
+            if (result.isSuccess()) {
+                succeeded++;
+            }
+            handler.handle(result);
+        }
+
+        // Anything left over timed out
+        for (Map.Entry<Future<FetchResult>, String> entry : pending.entrySet()) {
+            entry.getKey().cancel(true);
+            handler.handle(new FetchResult(entry.getValue(), Collections.emptyList(),
+                    new TimeoutException("Fetch timed out after " + timeoutMillis + " ms"),
+                    timeoutMillis));
+        }
+        return succeeded;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Interrupts the fetches still running and waits at most timeoutMillis for them to end. Returns how many
+     * were still running by then; their threads are daemons, so they do not keep the JVM alive.
+     */
+    public int close(long timeoutMillis) throws InterruptedException {
+        executor.shutdownNow();
+        return executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS) ? 0 : executor.getActiveCount();
+    }
+
+    // Runs a task while holding one of its host's permits
+    private FetchResult runLimited(String url, FetchTask task, long deadline) {
+        long started = System.currentTimeMillis();
+        Semaphore permits = hostPermits.computeIfAbsent(hostOf(url), host -> new Semaphore(perHostLimit));
+        try {
+            if (!permits.tryAcquire(Math.max(0, deadline - started), TimeUnit.MILLISECONDS)) {
+                return new FetchResult(url, Collections.emptyList(),
+                        new TimeoutException("No free connection slot for " + hostOf(url)),
+                        System.currentTimeMillis() - started);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new FetchResult(url, Collections.emptyList(), e, System.currentTimeMillis() - started);
+        }
+
+        try {
+            List<News> items = task.fetchAndParse(url);
+            return new FetchResult(url, items, null, System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            return new FetchResult(url, Collections.emptyList(), e, System.currentTimeMillis() - started);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host : url;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Where parsed items of one feed go: the NewsBus subscribers (if any), the shared batched writer, plus the feed's
+ * watermark persisted in SQLite.
+ *
+ * The in-memory watermark moves as items are queued, so the next poll skips them while they wait for their
+ * batch. If a batch of the writer fails, the next baseline() rewinds it to the last watermark committed to the
+ * database, and the items behind it are fetched again (stored ones are dropped by the dedup key, but reach
+ * NewsBus subscribers a second time).
+ *
+ * A sink is used by one poll at a time; the scheduler never runs two polls of the same feed concurrently.
+ */
+public class FeedSink {
+    private final DatabaseHandler dbHandler;
+    private final NewsWriter newsWriter;
+    private final String feedKey;
+    private final NewsBus bus; // null if nothing subscribes in-process
+    private FeedWatermark watermark;
+
+    // NewsWriter.getFailedBatches() when the watermark was last known to be safe to build on
+    private long failuresSeen;
+
+    public FeedSink(DatabaseHandler dbHandler, NewsWriter newsWriter, String feedKey) {
+        this(dbHandler, newsWriter, feedKey, null);
+    }
+
+    public FeedSink(DatabaseHandler dbHandler, NewsWriter newsWriter, String feedKey, NewsBus bus) {
+        this.dbHandler = dbHandler;
+        this.newsWriter = newsWriter;
+        this.feedKey = feedKey;
+        this.bus = bus;
+
+        // Resume from the persisted watermark so a restart skips everything already stored
+        this.watermark = dbHandler.loadWatermark(feedKey);
+        this.failuresSeen = newsWriter.getFailedBatches();
+        System.out.println("Resuming " + feedKey + " from " + watermark);
+    }
+
+    public String getFeedKey() {
+        return feedKey;
+    }
+
+    // Snapshot to filter one poll cycle against, whatever order its pages complete in
+    public FeedWatermark baseline() {
+        long failures = newsWriter.getFailedBatches();
+        if (failures != failuresSeen) {
+            // Queued items of this feed may have been in the failed batch; only the stored watermark is certain
+            failuresSeen = failures;
+            watermark = dbHandler.loadWatermark(feedKey);
+            System.out.println("Rewinding " + feedKey + " to " + watermark + " after a failed write");
+        }
+        return watermark.copy();
+    }
+
+    // Forget what a cycle accepted, so the next one fetches it again; for cycles that could not read every page
+    public void rewind(FeedWatermark baseline) {
+        watermark = baseline.copy();
+    }
+
+    // Queue an item unless the cycle's baseline already covers it; returns true if it was queued
+    public boolean accept(News news, FeedWatermark baseline) throws InterruptedException {
+        if (!baseline.isNewer(news)) {
+            return false;
+        }
+        // Subscribers get the item before it is committed, so pushes are not delayed by batching
+        if (bus != null) {
+            bus.publish(news);
+        }
+        newsWriter.submit(news);
+        watermark.advance(news);
+        return true;
+    }
+
+    // Persist the watermark in the same transaction as the items behind it, so it never runs ahead of the data
+    public void checkpoint(FeedWatermark baseline) {
+        if (!watermark.equals(baseline)) {
+            newsWriter.checkpoint(feedKey, watermark, failuresSeen);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory, time-ordered copy of the most recent news, so queries over the last few minutes are served
+ * without a database round trip.
+ *
+ * Rows are added as they are committed (duplicates rejected by the dedup key never get here) and kept in a
+ * skip list ordered by (news_time, arrival). The window is complete from a floor of now - windowMillis,
+ * raised further if maxEntries forced out newer rows; a query is answered from memory only if it starts
+ * at or after that floor, otherwise the caller falls through to SQLite. Only rows committed through the
+ * owning DatabaseHandler get here, so it also falls through (and reloads the window) when rows written by
+ * another process or handler show up as a higher MAX(id).
+ */
+public class HotNewsWindow {
+
+    /**
+     * Skip list key: news time, then arrival order to keep rows with the same timestamp apart.
+     */
+    private static final class TimeKey implements Comparable<TimeKey> {
+        final long timeMillis;
+        final long sequence;
+
+        TimeKey(long timeMillis, long sequence) {
+            this.timeMillis = timeMillis;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(TimeKey other) {
+            int byTime = Long.compare(timeMillis, other.timeMillis);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof TimeKey && compareTo((TimeKey) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(timeMillis) * 31 + Long.hashCode(sequence);
+        }
+    }
+
+    private final long windowMillis;
+    private final int maxEntries;
+    private final ConcurrentSkipListMap<TimeKey, News> entries = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    // ConcurrentSkipListMap.size() walks the whole map, so the count is kept separately
+    private final AtomicInteger count = new AtomicInteger();
+
+    // Lowest news time known to be complete because of size evictions (the time part of the floor is computed)
+    private final AtomicLong evictedThrough = new AtomicLong(Long.MIN_VALUE);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public HotNewsWindow(long windowMillis, int maxEntries) {
+        if (windowMillis <= 0 || maxEntries <= 0) {
+            throw new IllegalArgumentException("windowMillis and maxEntries must be positive");
+        }
+        this.windowMillis = windowMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Adds a committed row; rows already older than the window are ignored.
+     */
+    public void add(News news) {
+        long now = System.currentTimeMillis();
+        long timeMillis = news.getNewsTimeMillis();
+        if (timeMillis < now - windowMillis) {
+            return;
+        }
+        entries.put(new TimeKey(timeMillis, sequence.incrementAndGet()), news);
+        count.incrementAndGet();
+        evict(now);
+    }
+
+    /**
+     * Returns the rows in [startTime, endTime] in time order, or null if the range reaches below the window
+     * (the caller must query SQLite instead). category may be null for all categories.
+     */
+    public List<News> range(String category, Timestamp startTime, Timestamp endTime) {
+        long start = startTime.getTime();
+        long end = endTime.getTime();
+        if (start < floorMillis(System.currentTimeMillis())) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+
+        List<News> result = new ArrayList<>();
+        if (end < start) {
+            return result;
+        }
+        ConcurrentNavigableMap<TimeKey, News> slice =
+                entries.subMap(new TimeKey(start, Long.MIN_VALUE), true, new TimeKey(end, Long.MAX_VALUE), true);
+        for (News news : slice.values()) {
+            if (category == null || category.equals(news.getCategory())) {
+                result.add(news);
+            }
+        }
+        return result;
+    }
+
+    // Oldest news time the window is complete from
+    public long floorMillis(long now) {
+        return Math.max(now - windowMillis, evictedThrough.get());
+    }
+
+    public int size() {
+        return count.get();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public String statsSummary() {
+        return "size=" + count.get() + " hits=" + hits.sum() + " misses=" + misses.sum();
+    }
+
+    // Drop rows that aged out of the window, then the oldest rows while over capacity
+    private void evict(long now) {
+        long cutoff = now - windowMillis;
+        Map.Entry<TimeKey, News> oldest;
+        while ((oldest = entries.firstEntry()) != null && oldest.getKey().timeMillis < cutoff) {
+            if (entries.remove(oldest.getKey()) != null) {
+                count.decrementAndGet();
+            }
+        }
+        while (count.get() > maxEntries && (oldest = entries.pollFirstEntry()) != null) {
+            count.decrementAndGet();
+            // Rows at this timestamp may remain, so the window is only complete strictly after it
+            long completeFrom = oldest.getKey().timeMillis + 1;
+            evictedThrough.accumulateAndGet(completeFrom, Math::max);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram over fixed, roughly logarithmic buckets.
+ *
+ * Recording is a couple of atomic increments, so it is cheap enough for every fetch, commit and row.
+ * Percentiles are estimated as the upper bound of the bucket they fall in (capped at the observed max).
+ */
+public class LatencyHistogram {
+
+    // Upper bounds (inclusive); values above the last bound land in the overflow bucket
+    static final long[] BUCKET_BOUNDS = {
+            1, 2, 5, 10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 30_000, 60_000, 300_000, 3_600_000
+    };
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS.length + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    public void record(long value) {
+        long clamped = Math.max(0L, value);
+        buckets.incrementAndGet(bucketIndex(clamped));
+        count.increment();
+        sum.add(clamped);
+        max.accumulate(clamped);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Estimated value at the given quantile (0..1); 0 if nothing was recorded.
+     */
+    public long getPercentile(double quantile) {
+        long n = count.sum();
+        if (n == 0) {
+            return 0L;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(quantile * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(BUCKET_BOUNDS[i], max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Cumulative count of values <= BUCKET_BOUNDS[index], as Prometheus "le" buckets expect.
+     */
+    long getCumulativeCount(int index) {
+        long total = 0;
+        for (int i = 0; i <= index; i++) {
+            total += buckets.get(i);
+        }
+        return total;
+    }
+
+    private static int bucketIndex(long value) {
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+            if (value <= BUCKET_BOUNDS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS.length;
+    }
+}
@@ -0,0 +1,75 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Start/stop coordination for a long-running ingestion process.
+ *
+ * A stop can be requested from anywhere (the console, a replay timer, or SIGTERM/SIGINT through the shutdown
+ * hook) and starts the drain deadline. Loops wait on awaitStop instead of sleeping, so they react at once;
+ * the shutdown code spends at most remainingMillis() on draining and calls markStopped when done. The shutdown
+ * hook keeps the JVM alive until then (or until the deadline passes), so queued rows and checkpoints are
+ * committed before the process exits.
+ */
+public class Lifecycle {
+
+    // Time the hook allows past the drain deadline for the final close calls and log lines
+    private static final long HOOK_GRACE_MILLIS = 2000;
+
+    private final long drainTimeoutMillis;
+    private final CountDownLatch stopRequested = new CountDownLatch(1);
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private volatile long deadlineMillis = Long.MAX_VALUE;
+
+    public Lifecycle(long drainTimeoutMillis) {
+        this.drainTimeoutMillis = drainTimeoutMillis;
+    }
+
+    /**
+     * Turns JVM shutdown (SIGTERM, SIGINT, System.exit) into a stop request and holds the JVM until
+     * markStopped is called or the drain deadline has passed.
+     */
+    public void installShutdownHook() {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            requestStop("shutdown signal");
+            try {
+                if (!stopped.await(drainTimeoutMillis + HOOK_GRACE_MILLIS, TimeUnit.MILLISECONDS)) {
+                    System.err.println("Shutdown deadline passed before draining finished.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "shutdown-hook"));
+    }
+
+    // The first request wins; later ones (e.g. the hook after 'q') keep the original deadline
+    public synchronized void requestStop(String reason) {
+        if (stopRequested.getCount() == 0) {
+            return;
+        }
+        deadlineMillis = System.currentTimeMillis() + drainTimeoutMillis;
+        System.out.println("Stopping (" + reason + "), draining for up to " + drainTimeoutMillis / 1000 + " s...");
+        stopRequested.countDown();
+    }
+
+    public boolean isRunning() {
+        return stopRequested.getCount() > 0;
+    }
+
+    public void awaitStop() throws InterruptedException {
+        stopRequested.await();
+    }
+
+    // Sleeps up to the timeout, returning early (true) if a stop is requested meanwhile
+    public boolean awaitStop(long timeout, TimeUnit unit) throws InterruptedException {
+        return stopRequested.await(timeout, unit);
+    }
+
+    // Time left for draining; the full drain timeout while still running
+    public long remainingMillis() {
+        return isRunning() ? drainTimeoutMillis : Math.max(0, deadlineMillis - System.currentTimeMillis());
+    }
+
+    public void markStopped() {
+        stopped.countDown();
+    }
+}
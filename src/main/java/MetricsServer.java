@@ -0,0 +1,47 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves PipelineMetrics on a local HTTP port: /metrics as Prometheus text, /metrics/summary as one line.
+ * Binds to the loopback address only.
+ */
+public class MetricsServer implements AutoCloseable {
+
+    private final HttpServer server;
+
+    public MetricsServer(int port, PipelineMetrics metrics) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> {
+            String body = exchange.getRequestURI().getPath().endsWith("/summary")
+                    ? metrics.getSummary() + "\n"
+                    : metrics.toPrometheusText();
+            respond(exchange, body);
+        });
+        server.start();
+        System.out.println("Metrics available at http://localhost:" + getPort() + "/metrics");
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
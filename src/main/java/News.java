@@ -1,20 +1,76 @@
 import java.sql.Timestamp;
+import java.util.Objects;
 
-public class News {
-    private Timestamp newsTime;
-    private String category;
-    private String content;
+/**
+ * One news item. Immutable: the time is kept as epoch millis and the category is the shared instance from
+ * CategoryDictionary, so a large list of News holds one object per row plus its content string.
+ */
+public final class News {
+    private final long newsTimeMillis;
+    private final String category;
+    private final String content;
+    private final long sourceId; // Feed item id at the source, 0 if unknown
 
     public News(Timestamp newsTime, String category, String content) {
-        this.newsTime = newsTime;
-        this.category = category;
+        this(newsTime, category, content, 0L);
+    }
+
+    public News(Timestamp newsTime, String category, String content, long sourceId) {
+        this(Objects.requireNonNull(newsTime, "newsTime").getTime(), category, content, sourceId);
+    }
+
+    public News(long newsTimeMillis, String category, String content, long sourceId) {
+        this.newsTimeMillis = newsTimeMillis;
+        this.category = CategoryDictionary.intern(category);
         this.content = content;
+        this.sourceId = sourceId;
+    }
+
+    // A new Timestamp on every call, so callers cannot change this item's time
+    public Timestamp getNewsTime() {
+        return new Timestamp(newsTimeMillis);
+    }
+
+    public long getNewsTimeMillis() {
+        return newsTimeMillis;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public long getSourceId() {
+        return sourceId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof News)) {
+            return false;
+        }
+        News other = (News) o;
+        return newsTimeMillis == other.newsTimeMillis
+                && sourceId == other.sourceId
+                && Objects.equals(category, other.category)
+                && Objects.equals(content, other.content);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(newsTimeMillis, category, content, sourceId);
     }
 
     @Override
     public String toString() {
         return "News{" +
-                "newsTime=" + newsTime +
+                "newsTime=" + getNewsTime() +
                 ", category='" + category + '\'' +
                 ", content='" + content + '\'' +
                 '}';
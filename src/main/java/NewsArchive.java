@@ -0,0 +1,485 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Monthly partitions of old news, one SQLite file per month (archive/news_YYYY_MM.db).
+ *
+ * The live 'news' table only holds rows at or after the archive boundary, the end of the newest archived
+ * month; everything before it lives in the partition files. Archiving moves whole months out of 'news'
+ * (copy and delete in one transaction over an ATTACH), then VACUUMs the partition. Reads and late writes
+ * for times before the boundary are routed to the partitions of the months they touch, so the live table
+ * and its indexes stay small. Partitions are listed in the news_partitions table of the main database.
+ */
+public class NewsArchive {
+
+    /**
+     * One archived month.
+     */
+    public static final class Partition {
+        private final YearMonth month;
+        private final File file;
+        private final long startMillis;
+        private final long endMillis;
+
+        Partition(YearMonth month, File file, long startMillis, long endMillis) {
+            this.month = month;
+            this.file = file;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+        }
+
+        public YearMonth getMonth() {
+            return month;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        // First millisecond of the month (inclusive)
+        public long getStartMillis() {
+            return startMillis;
+        }
+
+        // First millisecond of the next month (exclusive)
+        public long getEndMillis() {
+            return endMillis;
+        }
+
+        String url() {
+            return "jdbc:sqlite:" + file.getPath();
+        }
+    }
+
+    static final String PARTITIONS_TABLE_SQL = """
+            CREATE TABLE IF NOT EXISTS news_partitions (
+                month TEXT PRIMARY KEY,                 -- 'YYYY-MM'
+                file TEXT NOT NULL,                     -- Path of the partition database
+                start_time INTEGER NOT NULL,            -- First millisecond of the month (inclusive)
+                end_time INTEGER NOT NULL,              -- First millisecond of the next month (exclusive)
+                row_count INTEGER NOT NULL,             -- Rows in the partition, late writes included
+                archived_at TIMESTAMP NOT NULL,         -- When the month was last archived
+                exported_rows INTEGER NOT NULL DEFAULT -1 -- Rows in its cold export, -1 if not exported yet
+            );
+            """;
+
+    private static final String SELECT_NEWS_SQL =
+            "SELECT news_time, category, content, source_id FROM news WHERE news_time BETWEEN ? AND ? ORDER BY news_time, id";
+
+    private final ConnectionPool pool;
+    private final File archiveDirectory;
+    private final ZoneId zone;
+    private final ConcurrentSkipListMap<YearMonth, Partition> partitions = new ConcurrentSkipListMap<>();
+
+    // Rows before this time live in partitions; Long.MIN_VALUE while nothing is archived
+    private volatile long boundaryMillis = Long.MIN_VALUE;
+
+    NewsArchive(ConnectionPool pool, File archiveDirectory, ZoneId zone) throws SQLException {
+        this.pool = pool;
+        this.archiveDirectory = archiveDirectory;
+        this.zone = zone;
+        pool.withReader(conn -> {
+            try (ResultSet rs = conn.prepare("SELECT month, file, start_time, end_time FROM news_partitions").executeQuery()) {
+                while (rs.next()) {
+                    register(new Partition(YearMonth.parse(rs.getString("month")), new File(rs.getString("file")),
+                            rs.getLong("start_time"), rs.getLong("end_time")));
+                }
+            }
+            return null;
+        });
+    }
+
+    public long getBoundaryMillis() {
+        return boundaryMillis;
+    }
+
+    // True if a row at this time belongs in a partition rather than the live table
+    public boolean isArchived(long timeMillis) {
+        return timeMillis < boundaryMillis;
+    }
+
+    public List<Partition> getPartitions() {
+        return new ArrayList<>(partitions.values());
+    }
+
+    /**
+     * Moves every month before firstLiveMonth out of the live table into its partition file, then VACUUMs
+     * each partition it wrote. Returns the number of rows moved.
+     */
+    public long archiveBefore(YearMonth firstLiveMonth) throws SQLException {
+        long cutoff = monthStart(firstLiveMonth);
+        Long oldest = pool.withReader(conn -> {
+            PreparedStatement pstmt = conn.prepare("SELECT MIN(news_time) FROM news WHERE news_time < ?");
+            pstmt.setTimestamp(1, new Timestamp(cutoff));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                long min = rs.next() ? rs.getLong(1) : 0L;
+                return rs.wasNull() ? null : min;
+            }
+        });
+        if (oldest == null) {
+            return 0L;
+        }
+
+        long moved = 0;
+        for (YearMonth month = monthOf(oldest); month.isBefore(firstLiveMonth); month = month.plusMonths(1)) {
+            moved += archiveMonth(month);
+        }
+        return moved;
+    }
+
+    /**
+     * Rows in [startMillis, endMillis] from the partitions that overlap it, in time order.
+     */
+    public List<News> fetch(long startMillis, long endMillis) {
+        List<News> newsList = new ArrayList<>();
+        for (Partition partition : overlapping(startMillis, endMillis)) {
+            try (Connection conn = openPartition(partition);
+                 PreparedStatement pstmt = conn.prepareStatement(SELECT_NEWS_SQL)) {
+                pstmt.setTimestamp(1, new Timestamp(Math.max(startMillis, partition.startMillis)));
+                pstmt.setTimestamp(2, new Timestamp(Math.min(endMillis, partition.endMillis - 1)));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        newsList.add(DatabaseHandler.readNews(rs));
+                    }
+                }
+            } catch (SQLException e) {
+                // Same policy as the live queries: report and return what could be read
+                e.printStackTrace();
+            }
+        }
+        return newsList;
+    }
+
+    /**
+     * Up to limit rows in [startMillis, endMillis] whose content or category contains every term, newest first,
+     * from the partitions that overlap it. Partitions have no full-text index (archiving drops the rows from
+     * the live one), so this is a LIKE scan of each month's time range; newer months are searched first and
+     * older ones only while the limit is not reached.
+     */
+    public List<News> search(List<String> terms, long startMillis, long endMillis, int limit) {
+        List<News> newsList = new ArrayList<>();
+        List<Partition> candidates = overlapping(startMillis, endMillis);
+        for (int p = candidates.size() - 1; p >= 0 && newsList.size() < limit; p--) {
+            Partition partition = candidates.get(p);
+            StringBuilder querySQL = new StringBuilder(
+                    "SELECT news_time, category, content, source_id FROM news WHERE news_time BETWEEN ? AND ?");
+            for (int i = 0; i < terms.size(); i++) {
+                querySQL.append(DatabaseHandler.LIKE_TERM_SQL);
+            }
+            querySQL.append(" ORDER BY news_time DESC LIMIT ?");
+            try (Connection conn = openPartition(partition);
+                 PreparedStatement pstmt = conn.prepareStatement(querySQL.toString())) {
+                int index = 1;
+                pstmt.setTimestamp(index++, new Timestamp(Math.max(startMillis, partition.startMillis)));
+                pstmt.setTimestamp(index++, new Timestamp(Math.min(endMillis, partition.endMillis - 1)));
+                for (String term : terms) {
+                    String pattern = DatabaseHandler.likePattern(term);
+                    pstmt.setString(index++, pattern);
+                    pstmt.setString(index++, pattern);
+                }
+                pstmt.setInt(index, limit - newsList.size());
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        newsList.add(DatabaseHandler.readNews(rs));
+                    }
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+        return newsList;
+    }
+
+    // Partitions whose month intersects [startMillis, endMillis], oldest first
+    public List<Partition> overlapping(long startMillis, long endMillis) {
+        List<Partition> result = new ArrayList<>();
+        if (endMillis < startMillis || startMillis >= boundaryMillis) {
+            return result;
+        }
+        for (Partition partition : partitions.values()) {
+            if (partition.startMillis <= endMillis && partition.endMillis > startMillis) {
+                result.add(partition);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Stores rows that belong to archived months in their partitions (INSERT OR IGNORE, so the dedup key
+     * still applies). Returns the number of rows inserted.
+     */
+    public int save(List<News> rows) throws SQLException {
+        Map<YearMonth, List<News>> byMonth = new TreeMap<>();
+        for (News news : rows) {
+            byMonth.computeIfAbsent(monthOf(news.getNewsTimeMillis()), m -> new ArrayList<>()).add(news);
+        }
+
+        int inserted = 0;
+        for (Map.Entry<YearMonth, List<News>> entry : byMonth.entrySet()) {
+            Partition partition = partitionFor(entry.getKey());
+            if (!partitions.containsKey(partition.month)) {
+                // A late row for a month that had no data when it was archived
+                recordEmptyPartition(partition);
+            }
+            try (Connection conn = DriverManager.getConnection(partition.url())) {
+                conn.setAutoCommit(false);
+                try (PreparedStatement pstmt = conn.prepareStatement(DatabaseHandler.INSERT_NEWS_SQL)) {
+                    for (News news : entry.getValue()) {
+                        DatabaseHandler.bindNews(pstmt, news);
+                        pstmt.addBatch();
+                    }
+                    int monthInserted = 0;
+                    for (int result : pstmt.executeBatch()) {
+                        if (result > 0) {
+                            monthInserted++;
+                        }
+                    }
+                    conn.commit();
+                    inserted += monthInserted;
+                    // A changed row count is what makes exportChanged write the month again
+                    addRowCount(partition, monthInserted);
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Writes the cold export (see exportPartition) of every partition that has none in directory yet or whose
+     * row count changed since it was written, as news_YYYY_MM.ncol.gz. Each file is written under a temporary
+     * name and renamed into place, so an interrupted export never leaves a partial file behind.
+     * Returns the number of files written.
+     */
+    public int exportChanged(File directory) throws SQLException, IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Cannot create export directory " + directory);
+        }
+        Map<YearMonth, Boolean> changed = new TreeMap<>();
+        pool.withReader(conn -> {
+            try (ResultSet rs = conn.prepare("SELECT month, row_count <> exported_rows FROM news_partitions").executeQuery()) {
+                while (rs.next()) {
+                    changed.put(YearMonth.parse(rs.getString(1)), rs.getBoolean(2));
+                }
+            }
+            return null;
+        });
+
+        int written = 0;
+        for (Map.Entry<YearMonth, Boolean> entry : changed.entrySet()) {
+            Partition partition = partitions.get(entry.getKey());
+            if (partition == null) {
+                continue;
+            }
+            File target = new File(directory, partition.file.getName().replace(".db", ".ncol.gz"));
+            if (target.exists() && !entry.getValue()) {
+                continue;
+            }
+            File temporary = new File(directory, target.getName() + ".tmp");
+            long rows = exportPartition(partition.month, temporary);
+            Files.move(temporary.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            // The count written, not the one read above: a late row that made it into the file is not exported again
+            pool.withWriter(conn -> {
+                PreparedStatement pstmt = conn.prepare("UPDATE news_partitions SET exported_rows = ? WHERE month = ?");
+                pstmt.setLong(1, rows);
+                pstmt.setString(2, partition.month.toString());
+                return pstmt.executeUpdate();
+            });
+            System.out.println("Exported " + rows + " news of " + partition.month + " to " + target.getPath());
+            written++;
+        }
+        return written;
+    }
+
+    /**
+     * Writes one partition to a gzip-compressed columnar file (see ColumnarNewsFile) for cold storage.
+     * Returns the number of rows written.
+     */
+    public long exportPartition(YearMonth month, File target) throws SQLException, IOException {
+        Partition partition = partitions.get(month);
+        if (partition == null) {
+            throw new IllegalArgumentException("Month " + month + " is not archived");
+        }
+        try (Connection conn = openPartition(partition);
+             PreparedStatement pstmt = conn.prepareStatement(SELECT_NEWS_SQL);
+             ColumnarNewsFile.Writer writer = ColumnarNewsFile.openWriter(target, true)) {
+            pstmt.setTimestamp(1, new Timestamp(partition.startMillis));
+            pstmt.setTimestamp(2, new Timestamp(partition.endMillis - 1));
+            pstmt.setFetchSize(1000);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    writer.add(rs.getLong("news_time"), rs.getString("category"), rs.getString("content"),
+                            rs.getLong("source_id"));
+                }
+            }
+            return writer.getRowsWritten();
+        }
+    }
+
+    // Copy one month into its partition and delete it from the live table, atomically from the live table's view
+    private long archiveMonth(YearMonth month) throws SQLException {
+        Partition partition = partitionFor(month);
+        long moved = pool.withWriter(conn -> {
+            Connection raw = conn.raw();
+
+            // ATTACH/DETACH are not allowed inside a transaction
+            try (PreparedStatement attach = raw.prepareStatement("ATTACH DATABASE ? AS part")) {
+                attach.setString(1, partition.file.getPath());
+                attach.execute();
+            }
+            try {
+                raw.setAutoCommit(false);
+                try (PreparedStatement copy = raw.prepareStatement("""
+                             INSERT OR IGNORE INTO part.news (news_time, category, content, dedup_key, source_id)
+                             SELECT news_time, category, content, dedup_key, source_id FROM main.news
+                             WHERE news_time >= ? AND news_time < ? ORDER BY news_time, id
+                             """);
+                     PreparedStatement delete = raw.prepareStatement(
+                             "DELETE FROM main.news WHERE news_time >= ? AND news_time < ?");
+                     PreparedStatement record = raw.prepareStatement("""
+                             INSERT OR REPLACE INTO main.news_partitions
+                                 (month, file, start_time, end_time, row_count, archived_at)
+                             VALUES (?, ?, ?, ?, (SELECT COUNT(*) FROM part.news), ?)
+                             """)) {
+                    copy.setTimestamp(1, new Timestamp(partition.startMillis));
+                    copy.setTimestamp(2, new Timestamp(partition.endMillis));
+                    copy.executeUpdate();
+
+                    delete.setTimestamp(1, new Timestamp(partition.startMillis));
+                    delete.setTimestamp(2, new Timestamp(partition.endMillis));
+                    int deleted = delete.executeUpdate();
+
+                    record.setString(1, month.toString());
+                    record.setString(2, partition.file.getPath());
+                    record.setLong(3, partition.startMillis);
+                    record.setLong(4, partition.endMillis);
+                    record.setTimestamp(5, new Timestamp(System.currentTimeMillis()));
+                    record.executeUpdate();
+
+                    raw.commit();
+
+                    // Raise the boundary before releasing the writer lock, so no commit routes a row of this
+                    // month to the live table after it was moved
+                    register(partition);
+                    return (long) deleted;
+                } catch (SQLException e) {
+                    raw.rollback();
+                    throw e;
+                }
+            } finally {
+                raw.setAutoCommit(true);
+                try (Statement detach = raw.createStatement()) {
+                    detach.execute("DETACH DATABASE part");
+                }
+            }
+        });
+
+        compact(partition);
+        System.out.println("Archived " + moved + " news of " + month + " to " + partition.file.getPath());
+        return moved;
+    }
+
+    private void addRowCount(Partition partition, int rows) throws SQLException {
+        if (rows == 0) {
+            return;
+        }
+        pool.withWriter(conn -> {
+            PreparedStatement pstmt = conn.prepare("UPDATE news_partitions SET row_count = row_count + ? WHERE month = ?");
+            pstmt.setInt(1, rows);
+            pstmt.setString(2, partition.month.toString());
+            return pstmt.executeUpdate();
+        });
+    }
+
+    // List a new, still empty partition so reads find it
+    private void recordEmptyPartition(Partition partition) throws SQLException {
+        pool.withWriter(conn -> {
+            PreparedStatement pstmt = conn.prepare("""
+                    INSERT OR IGNORE INTO news_partitions (month, file, start_time, end_time, row_count, archived_at)
+                    VALUES (?, ?, ?, ?, 0, ?)
+                    """);
+            pstmt.setString(1, partition.month.toString());
+            pstmt.setString(2, partition.file.getPath());
+            pstmt.setLong(3, partition.startMillis);
+            pstmt.setLong(4, partition.endMillis);
+            pstmt.setTimestamp(5, new Timestamp(System.currentTimeMillis()));
+            return pstmt.executeUpdate();
+        });
+        register(partition);
+    }
+
+    // Rebuild the partition file without free pages; it is rarely written again
+    private void compact(Partition partition) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(partition.url());
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("VACUUM");
+        }
+    }
+
+    // The month's partition, creating its file and schema if needed
+    private Partition partitionFor(YearMonth month) throws SQLException {
+        Partition existing = partitions.get(month);
+        if (existing != null) {
+            return existing;
+        }
+        if (!archiveDirectory.exists() && !archiveDirectory.mkdirs()) {
+            throw new SQLException("Cannot create archive directory " + archiveDirectory);
+        }
+        File file = new File(archiveDirectory, String.format("news_%04d_%02d.db", month.getYear(), month.getMonthValue()));
+        Partition partition = new Partition(month, file, monthStart(month), monthStart(month.plusMonths(1)));
+
+        try (Connection conn = DriverManager.getConnection(partition.url());
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(DatabaseHandler.NEWS_TABLE_SQL);
+            stmt.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_news_dedup_key ON news (dedup_key)");
+            stmt.execute(DatabaseHandler.TIME_INDEX_SQL);
+        }
+        return partition;
+    }
+
+    private void register(Partition partition) {
+        partitions.put(partition.month, partition);
+        if (partition.endMillis > boundaryMillis) {
+            boundaryMillis = partition.endMillis;
+        }
+    }
+
+    private static Connection openPartition(Partition partition) throws SQLException {
+        Connection conn = DriverManager.getConnection(partition.url());
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA query_only = ON");
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        return conn;
+    }
+
+    private YearMonth monthOf(long timeMillis) {
+        return YearMonth.from(Instant.ofEpochMilli(timeMillis).atZone(zone));
+    }
+
+    private long monthStart(YearMonth month) {
+        return month.atDay(1).atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,248 @@
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming bulk export and import of news, for moving large archives between machines or into analytics tools.
+ *
+ * Two gzip-compressed formats, chosen by file name: NDJSON (one {"time", "category", "content", "sourceId"}
+ * object per line, readable by most tools) and ColumnarNewsFile (about half the size, faster to read).
+ * Export pages through the time window, so neither side holds more than one batch in memory.
+ *
+ * Import commits IMPORT_BATCH_ROWS rows per transaction. The two time indexes are dropped for the duration and
+ * built once at the end; if the process dies first, the next DatabaseHandler recreates them at startup. The
+ * unique dedup index stays, since it is what skips rows that are already stored, and so do the full-text
+ * triggers, so every committed row is searchable and deletes during the import keep news_fts consistent.
+ * Queries keep working meanwhile, but range scans are slower until the end.
+ */
+public class NewsBulkTransfer {
+
+    public enum Format {
+        NDJSON, COLUMNAR;
+
+        public static Format of(File file) {
+            String name = file.getName().toLowerCase();
+            if (name.endsWith(".ndjson.gz") || name.endsWith(".jsonl.gz")) {
+                return NDJSON;
+            }
+            if (name.endsWith(".ncol.gz")) {
+                return COLUMNAR;
+            }
+            throw new IllegalArgumentException("Unknown bulk file type (use .ndjson.gz or .ncol.gz): " + name);
+        }
+    }
+
+    // Rows per keyset page on export and per transaction on import
+    static final int EXPORT_PAGE_SIZE = 10_000;
+    static final int IMPORT_BATCH_ROWS = ColumnarNewsFile.BLOCK_ROWS;
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final ConnectionPool pool;
+    private final DatabaseHandler dbHandler;
+
+    NewsBulkTransfer(ConnectionPool pool, DatabaseHandler dbHandler) {
+        this.pool = pool;
+        this.dbHandler = dbHandler;
+    }
+
+    long exportNews(Timestamp startTime, Timestamp endTime, File target) throws IOException {
+        Format format = Format.of(target);
+        long started = System.currentTimeMillis();
+        long rows = 0;
+        try (Stream<News> news = dbHandler.streamNewsByTimeWindow(null, startTime, endTime, EXPORT_PAGE_SIZE)) {
+            Iterator<News> it = news.iterator();
+            if (format == Format.COLUMNAR) {
+                try (ColumnarNewsFile.Writer writer = ColumnarNewsFile.openWriter(target, true)) {
+                    while (it.hasNext()) {
+                        writer.add(it.next());
+                    }
+                    rows = writer.getRowsWritten();
+                }
+            } else {
+                try (JsonGenerator json = JSON.createGenerator(gzipOut(target), JsonEncoding.UTF8)) {
+                    json.setRootValueSeparator(new SerializedString("\n"));
+                    while (it.hasNext()) {
+                        writeJson(json, it.next());
+                        rows++;
+                    }
+                    json.writeRaw('\n');
+                }
+            }
+        }
+        System.out.println("Exported " + rows + " news to " + target.getPath() + " in "
+                + (System.currentTimeMillis() - started) + " ms.");
+        return rows;
+    }
+
+    long importNews(File source) throws IOException, SQLException {
+        Format format = Format.of(source);
+        long started = System.currentTimeMillis();
+        long read = 0;
+        long inserted = 0;
+
+        dropIndexes();
+        try (BatchReader reader = format == Format.COLUMNAR ? new ColumnarBatchReader(source) : new JsonBatchReader(source)) {
+            List<News> batch;
+            while ((batch = reader.nextBatch()) != null) {
+                read += batch.size();
+                inserted += commitBatch(batch);
+            }
+        } finally {
+            // Also after a failed load, so the table is never left without its indexes
+            buildIndexes();
+        }
+
+        long elapsed = Math.max(1, System.currentTimeMillis() - started);
+        System.out.println("Imported " + inserted + " of " + read + " news from " + source.getPath() + " in "
+                + elapsed + " ms (" + (read * 60_000 / elapsed) + " rows/min, " + (read - inserted) + " duplicates).");
+        return inserted;
+    }
+
+    // One transaction per batch, through the same routing and hot-window mirroring as NewsWriter
+    private int commitBatch(List<News> batch) throws SQLException {
+        DatabaseHandler.CommittedNews committed = dbHandler.commitNews(batch, null);
+        return committed.inserted() + committed.archived();
+    }
+
+    private void dropIndexes() throws SQLException {
+        pool.inTransaction(conn -> {
+            try (Statement stmt = conn.raw().createStatement()) {
+                stmt.execute("DROP INDEX IF EXISTS idx_news_time");
+                stmt.execute("DROP INDEX IF EXISTS idx_news_category_time");
+            }
+            return null;
+        });
+    }
+
+    // Sorting once per index is much cheaper than updating it per row
+    private void buildIndexes() throws SQLException {
+        pool.inTransaction(conn -> {
+            try (Statement stmt = conn.raw().createStatement()) {
+                stmt.execute(DatabaseHandler.TIME_INDEX_SQL);
+                stmt.execute(DatabaseHandler.CATEGORY_TIME_INDEX_SQL);
+            }
+            return null;
+        });
+    }
+
+    static void writeJson(JsonGenerator json, News news) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("time", news.getNewsTimeMillis());
+        json.writeStringField("category", news.getCategory());
+        json.writeStringField("content", news.getContent());
+        json.writeNumberField("sourceId", news.getSourceId());
+        json.writeEndObject();
+    }
+
+    private static OutputStream gzipOut(File target) throws IOException {
+        return new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(target)), 1 << 16);
+    }
+
+    private static InputStream gzipIn(File source) throws IOException {
+        return new GZIPInputStream(new BufferedInputStream(new FileInputStream(source)), 1 << 16);
+    }
+
+    // Reads a bulk file a batch at a time; nextBatch returns null at the end
+    private interface BatchReader extends AutoCloseable {
+        List<News> nextBatch() throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private static final class ColumnarBatchReader implements BatchReader {
+        private final ColumnarNewsFile.Reader reader;
+
+        ColumnarBatchReader(File source) throws IOException {
+            this.reader = ColumnarNewsFile.openReader(source);
+        }
+
+        @Override
+        public List<News> nextBatch() throws IOException {
+            NewsColumns block = reader.readBlock();
+            if (block == null) {
+                return null;
+            }
+            List<News> batch = new ArrayList<>(block.size());
+            for (int i = 0; i < block.size(); i++) {
+                batch.add(block.get(i));
+            }
+            return batch;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private static final class JsonBatchReader implements BatchReader {
+        private final JsonParser parser;
+
+        JsonBatchReader(File source) throws IOException {
+            this.parser = JSON.createParser(gzipIn(source));
+        }
+
+        @Override
+        public List<News> nextBatch() throws IOException {
+            List<News> batch = new ArrayList<>(IMPORT_BATCH_ROWS);
+            JsonToken token;
+            while (batch.size() < IMPORT_BATCH_ROWS && (token = parser.nextToken()) != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IOException("Expected one JSON object per line at " + parser.currentLocation());
+                }
+                batch.add(readJson(parser));
+            }
+            return batch.isEmpty() ? null : batch;
+        }
+
+        private static News readJson(JsonParser parser) throws IOException {
+            long time = Long.MIN_VALUE;
+            String category = null;
+            String content = null;
+            long sourceId = 0L;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "time" -> time = parser.getLongValue();
+                    case "category" -> category = parser.getValueAsString();
+                    case "content" -> content = parser.getValueAsString();
+                    case "sourceId" -> sourceId = parser.getLongValue();
+                    default -> parser.skipChildren();
+                }
+            }
+            if (time == Long.MIN_VALUE) {
+                throw new IOException("News without \"time\" at " + parser.currentLocation());
+            }
+            return new News(time, category, content, sourceId);
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process publish/subscribe stage between parsing and persistence: FeedSink publishes every new item the
+ * moment it is accepted, and each subscriber receives the ones matching its Filter in a bounded buffer of its own.
+ *
+ * What happens when a buffer is full is chosen per subscriber: DROP_OLDEST and DROP_NEWEST never slow the
+ * pipeline down and count what they discard; BLOCK makes the publishing poll wait for the subscriber, so a
+ * slow BLOCK subscriber holds back ingestion of that feed (until it catches up or closes its subscription).
+ */
+public class NewsBus {
+
+    public enum OverflowPolicy {
+        DROP_OLDEST, DROP_NEWEST, BLOCK
+    }
+
+    // How often a blocked publisher rechecks whether the subscription was closed meanwhile
+    private static final long BLOCK_RECHECK_MILLIS = 100;
+
+    /**
+     * Matches news in any of the categories (all if none are given) whose content contains any of the
+     * keywords, ignoring case (all if none are given).
+     */
+    public static final class Filter {
+        public static final Filter ALL = new Filter(Set.of(), List.of());
+
+        private final Set<String> categories;
+        private final List<String> keywords;
+
+        private Filter(Set<String> categories, List<String> keywords) {
+            this.categories = categories;
+            this.keywords = keywords;
+        }
+
+        public static Filter of(Collection<String> categories, Collection<String> keywords) {
+            return new Filter(Set.copyOf(categories),
+                    keywords.stream().map(keyword -> keyword.toLowerCase(Locale.ROOT)).toList());
+        }
+
+        public boolean matches(News news) {
+            if (!categories.isEmpty() && (news.getCategory() == null || !categories.contains(news.getCategory()))) {
+                return false;
+            }
+            if (keywords.isEmpty()) {
+                return true;
+            }
+            if (news.getContent() == null) {
+                return false;
+            }
+            String content = news.getContent().toLowerCase(Locale.ROOT);
+            for (String keyword : keywords) {
+                if (content.contains(keyword)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return "categories=" + (categories.isEmpty() ? "*" : categories) + ", keywords=" + (keywords.isEmpty() ? "*" : keywords);
+        }
+    }
+
+    /**
+     * One subscriber's buffer. Read it with poll or drainTo from the subscriber's own thread; close it to stop
+     * receiving (which also releases a publisher blocked on it).
+     */
+    public final class Subscription implements AutoCloseable {
+        private final Filter filter;
+        private final OverflowPolicy policy;
+        private final ArrayBlockingQueue<News> buffer;
+        private final AtomicLong received = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile boolean closed = false;
+
+        private Subscription(Filter filter, int capacity, OverflowPolicy policy) {
+            this.filter = filter;
+            this.policy = policy;
+            this.buffer = new ArrayBlockingQueue<>(capacity);
+        }
+
+        // The next item, waiting up to the timeout; null if none arrived (or the subscription is closed)
+        public News poll(long timeout, TimeUnit unit) throws InterruptedException {
+            return closed ? null : buffer.poll(timeout, unit);
+        }
+
+        // Moves up to maxItems buffered items into target without waiting; returns how many were moved
+        public int drainTo(Collection<? super News> target, int maxItems) {
+            return buffer.drainTo(target, maxItems);
+        }
+
+        public int getBuffered() {
+            return buffer.size();
+        }
+
+        // Items that matched the filter, including dropped ones
+        public long getReceived() {
+            return received.get();
+        }
+
+        public long getDropped() {
+            return dropped.get();
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            subscriptions.remove(this);
+            buffer.clear();
+        }
+
+        private void offer(News news) throws InterruptedException {
+            if (closed || !filter.matches(news)) {
+                return;
+            }
+            received.incrementAndGet();
+            switch (policy) {
+                case DROP_NEWEST -> {
+                    if (!buffer.offer(news)) {
+                        dropped.incrementAndGet();
+                    }
+                }
+                case DROP_OLDEST -> {
+                    while (!buffer.offer(news)) {
+                        if (buffer.poll() != null) {
+                            dropped.incrementAndGet();
+                        }
+                    }
+                }
+                case BLOCK -> {
+                    while (!buffer.offer(news, BLOCK_RECHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                        if (closed) {
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicLong published = new AtomicLong();
+
+    public Subscription subscribe(Filter filter, int capacity, OverflowPolicy policy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        Subscription subscription = new Subscription(filter, capacity, policy);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Hands an item to every matching subscriber. Returns at once unless a BLOCK subscriber's buffer is full.
+     */
+    public void publish(News news) throws InterruptedException {
+        published.incrementAndGet();
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(news);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    public String statsSummary() {
+        long dropped = 0;
+        for (Subscription subscription : subscriptions) {
+            dropped += subscription.getDropped();
+        }
+        return "published=" + published.get() + ", subscribers=" + subscriptions.size() + ", dropped=" + dropped;
+    }
+}
@@ -0,0 +1,155 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Column-oriented, append-only store of news for in-memory analytics over millions of rows.
+ *
+ * Each row costs a long time, a long source id and an int category code (see CategoryDictionary),
+ * plus a content reference if contents were loaded, instead of a News, a Timestamp and the strings.
+ * Rows are expected in news_time order (as loadColumns returns them), which the range methods rely on.
+ */
+public class NewsColumns {
+
+    private long[] times;
+    private long[] sourceIds;
+    private int[] categoryCodes;
+    private String[] contents; // null if loaded without contents
+    private int size = 0;
+
+    public NewsColumns(int initialCapacity, boolean withContent) {
+        int capacity = Math.max(16, initialCapacity);
+        this.times = new long[capacity];
+        this.sourceIds = new long[capacity];
+        this.categoryCodes = new int[capacity];
+        this.contents = withContent ? new String[capacity] : null;
+    }
+
+    public void add(long timeMillis, String category, String content, long sourceId) {
+        if (size == times.length) {
+            grow();
+        }
+        times[size] = timeMillis;
+        sourceIds[size] = sourceId;
+        categoryCodes[size] = CategoryDictionary.code(category);
+        if (contents != null) {
+            contents[size] = content;
+        }
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean hasContent() {
+        return contents != null;
+    }
+
+    public long getTimeMillis(int index) {
+        checkIndex(index);
+        return times[index];
+    }
+
+    public long getSourceId(int index) {
+        checkIndex(index);
+        return sourceIds[index];
+    }
+
+    public int getCategoryCode(int index) {
+        checkIndex(index);
+        return categoryCodes[index];
+    }
+
+    public String getCategory(int index) {
+        return CategoryDictionary.name(getCategoryCode(index));
+    }
+
+    // Null if the columns were loaded without contents
+    public String getContent(int index) {
+        checkIndex(index);
+        return contents != null ? contents[index] : null;
+    }
+
+    // Materializes one row as a News
+    public News get(int index) {
+        return new News(getTimeMillis(index), getCategory(index), getContent(index), getSourceId(index));
+    }
+
+    /**
+     * Index of the first row at or after the given time (size() if there is none).
+     */
+    public int lowerBound(long timeMillis) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[mid] < timeMillis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Number of rows with fromMillis <= time <= toMillis
+    public int countBetween(long fromMillis, long toMillis) {
+        if (toMillis < fromMillis) {
+            return 0;
+        }
+        int end = toMillis == Long.MAX_VALUE ? size : lowerBound(toMillis + 1);
+        return end - lowerBound(fromMillis);
+    }
+
+    /**
+     * Rows per category (null for uncategorized), in order of first appearance in the dictionary.
+     */
+    public Map<String, Integer> countByCategory() {
+        int[] counts = new int[CategoryDictionary.size() + 1];
+        for (int i = 0; i < size; i++) {
+            counts[categoryCodes[i] + 1]++;
+        }
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (int slot = 0; slot < counts.length; slot++) {
+            if (counts[slot] > 0) {
+                result.put(CategoryDictionary.name(slot - 1), counts[slot]);
+            }
+        }
+        return result;
+    }
+
+    // Drop every row but keep the capacity, e.g. to reuse the arrays as a block buffer
+    public void clear() {
+        if (contents != null) {
+            Arrays.fill(contents, 0, size, null);
+        }
+        size = 0;
+    }
+
+    // Release the spare capacity left by growth once loading is done
+    public void trimToSize() {
+        if (size < times.length) {
+            resize(size);
+        }
+    }
+
+    private void grow() {
+        resize(times.length + (times.length >> 1) + 1);
+    }
+
+    private void resize(int capacity) {
+        times = Arrays.copyOf(times, capacity);
+        sourceIds = Arrays.copyOf(sourceIds, capacity);
+        categoryCodes = Arrays.copyOf(categoryCodes, capacity);
+        if (contents != null) {
+            contents = Arrays.copyOf(contents, capacity);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+    }
+}
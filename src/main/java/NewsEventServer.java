@@ -0,0 +1,133 @@
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes NewsBus items to HTTP clients as Server-Sent Events on /news/stream, e.g.
+ * curl -N "http://localhost:PORT/news/stream?category=A,B&keyword=rate".
+ *
+ * Each connection gets its own DROP_OLDEST subscription, so a slow client loses its oldest unsent items
+ * instead of slowing ingestion down. Events carry the same JSON object as the NDJSON bulk export; a comment
+ * line is sent when nothing arrived for a while, so proxies and clients notice dead connections.
+ * Binds to the loopback address only.
+ */
+public class NewsEventServer implements AutoCloseable {
+
+    public static final String STREAM_PATH = "/news/stream";
+
+    private static final long KEEPALIVE_SECONDS = 15;
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final NewsBus bus;
+    private final int bufferSize;
+
+    public NewsEventServer(int port, NewsBus bus, int bufferSize) throws IOException {
+        this.bus = bus;
+        this.bufferSize = bufferSize;
+
+        // One thread per open stream, so connections never wait for each other
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "news-event-stream");
+            t.setDaemon(true);
+            return t;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(executor);
+        server.createContext(STREAM_PATH, this::stream);
+        server.start();
+        System.out.println("News push stream available at http://localhost:" + getPort() + STREAM_PATH);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void stream(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        NewsBus.Filter filter = NewsBus.Filter.of(queryValues(query, "category"), queryValues(query, "keyword"));
+        try (NewsBus.Subscription subscription = bus.subscribe(filter, bufferSize, NewsBus.OverflowPolicy.DROP_OLDEST);
+             OutputStream out = exchange.getResponseBody()) {
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, 0);
+            out.write((": subscribed " + filter + "\n\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            List<News> pending = new ArrayList<>();
+            while (!Thread.currentThread().isInterrupted()) {
+                News news = subscription.poll(KEEPALIVE_SECONDS, TimeUnit.SECONDS);
+                if (news == null) {
+                    out.write(": keepalive\n\n".getBytes(StandardCharsets.UTF_8));
+                } else {
+                    // Whatever else is already buffered goes out in the same write
+                    pending.add(news);
+                    subscription.drainTo(pending, bufferSize);
+                    for (News item : pending) {
+                        out.write(event(item));
+                    }
+                    pending.clear();
+                }
+                // Throws once the client has gone away, which ends the subscription
+                out.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // Client disconnected
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static byte[] event(News news) throws IOException {
+        ByteArrayOutputStream data = new ByteArrayOutputStream(256);
+        data.write(("event: news\nid: " + news.getSourceId() + "\ndata: ").getBytes(StandardCharsets.UTF_8));
+        try (JsonGenerator json = JSON.createGenerator(data, JsonEncoding.UTF8)) {
+            NewsBulkTransfer.writeJson(json, news);
+        }
+        data.write("\n\n".getBytes(StandardCharsets.UTF_8));
+        return data.toByteArray();
+    }
+
+    // Comma-separated values of every occurrence of a query parameter
+    private static List<String> queryValues(String rawQuery, String name) {
+        List<String> values = new ArrayList<>();
+        if (rawQuery == null) {
+            return values;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8).equals(name)) {
+                for (String value : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8).split(",")) {
+                    if (!value.isBlank()) {
+                        values.add(value.trim());
+                    }
+                }
+            }
+        }
+        return values;
+    }
+}
@@ -16,8 +16,11 @@ import org.jsoup.nodes.Document;
 public class NewsScraper {
 
     public static void main(String[] args) {
-        // Step 1: Set up WebDriver
-        System.setProperty("webdriver.chrome.driver", "C:\\Users\\jiay\\JavaCourse\\NewsScrapper\\tools\\chromedriver-win64\\chromedriver.exe");
+        // Step 1: Set up WebDriver (the chromedriver path can be passed as the first argument; otherwise
+        // Selenium locates a driver itself)
+        if (args.length > 0 && !args[0].isBlank()) {
+            System.setProperty("webdriver.chrome.driver", args[0]);
+        }
 
         ChromeOptions options = new ChromeOptions();
         LoggingPreferences logPrefs = new LoggingPreferences();
@@ -0,0 +1,19 @@
+import java.util.List;
+
+/**
+ * A news feed the SourceScheduler can poll.
+ *
+ * Implementations fetch and parse one round of items; the scheduler owns timing, watermarks and persistence.
+ */
+public interface NewsSource {
+
+    /**
+     * Stable identifier of the feed, also used as its watermark key, e.g. "sina:152".
+     */
+    String getKey();
+
+    /**
+     * Fetches one round of items newer than the baseline watermark. Throws if the round failed as a whole.
+     */
+    List<News> poll(FeedWatermark baseline) throws Exception;
+}
@@ -0,0 +1,390 @@
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Batched write pipeline for the 'news' table.
+ *
+ * Producers push News into a bounded queue; a single writer thread commits rows in multi-row
+ * transactions on the pool's writer connection once either the batch size or the flush interval
+ * is reached. A full queue blocks producers (backpressure).
+ *
+ * Feed watermarks are checkpointed through the writer as well: a checkpoint is written in the transaction
+ * that commits the last row submitted before it, so after a crash the stored watermark never runs ahead of
+ * the stored rows, and it never lags them by more than one batch. When a batch fails, every pending checkpoint
+ * is discarded, and so is every later one whose watermark was built before the failure (see FeedSink), since
+ * any of them may cover the lost rows.
+ */
+public class NewsWriter implements AutoCloseable {
+
+    // Upper bound on how long the writer thread sleeps before re-checking flush/close requests
+    private static final long POLL_SLICE_MILLIS = 50;
+
+    private final BlockingQueue<News> queue;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final ConnectionPool pool;
+    private final DatabaseHandler dbHandler;
+    private final Thread writerThread;
+    private final PipelineMetrics metrics = PipelineMetrics.global();
+    private final IntSupplier queueDepthGauge = this::getQueueDepth;
+
+    private volatile boolean closed = false;
+    private volatile boolean flushRequested = false;
+
+    // Set when close ran out of time; the writer thread then stops after its current batch
+    private volatile boolean abandoned = false;
+
+    // Progress counters, guarded by 'this'
+    private long submitted = 0;
+    private long processed = 0;
+    private long failedBatches = 0;
+
+    // Enqueueing and counting happen as one step under this lock, so the first 'submitted' items in queue
+    // order are exactly the ones counted; checkpoints rely on that. The writer thread never takes it.
+    private final Object submitLock = new Object();
+
+    // Latest watermark per feed waiting for its rows to be committed, guarded by 'this'
+    private final Map<String, Checkpoint> pendingCheckpoints = new LinkedHashMap<>();
+
+    private record Checkpoint(String feedKey, FeedWatermark watermark, long afterSubmitted) {
+    }
+
+    // Statistics, written only by the writer thread
+    private volatile long rowsWritten = 0;
+    private volatile long rowsIgnored = 0;
+    private volatile long rowsFailed = 0;
+    private volatile long commitCount = 0;
+    private volatile long totalCommitNanos = 0;
+    private volatile long maxCommitNanos = 0;
+    private final long startedAtNanos = System.nanoTime();
+
+    public NewsWriter(ConnectionPool pool, DatabaseHandler dbHandler, int batchSize, long flushIntervalMillis, int queueCapacity) {
+        if (batchSize <= 0 || flushIntervalMillis <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("batchSize, flushIntervalMillis and queueCapacity must be positive");
+        }
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+
+        // Batches share the pool's writer connection and its cached insert statement
+        this.pool = pool;
+        this.dbHandler = dbHandler;
+
+        metrics.addQueueDepthGauge(queueDepthGauge);
+
+        this.writerThread = new Thread(this::runLoop, "news-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queues a news item for writing, blocking while the queue is full.
+     */
+    public void submit(News news) throws InterruptedException {
+        ensureOpen();
+        synchronized (submitLock) {
+            queue.put(news);
+            markSubmitted();
+        }
+        metrics.recordQueued();
+    }
+
+    /**
+     * Queues a news item, waiting at most the given time for space. Returns false if the queue stayed full.
+     */
+    public boolean offer(News news, long timeout, TimeUnit unit) throws InterruptedException {
+        ensureOpen();
+        synchronized (submitLock) {
+            if (!queue.offer(news, timeout, unit)) {
+                return false;
+            }
+            markSubmitted();
+        }
+        metrics.recordQueued();
+        return true;
+    }
+
+    /**
+     * Stores a feed's watermark together with every item submitted before this call, in the same transaction
+     * as the last of them. Returns at once; a newer checkpoint of the same feed replaces a pending one.
+     * The watermark must not cover items of a batch that has already failed.
+     */
+    public void checkpoint(String feedKey, FeedWatermark watermark) {
+        checkpoint(feedKey, watermark, getFailedBatches());
+    }
+
+    /**
+     * Same, for a watermark built while getFailedBatches() returned failuresSeen. It is ignored if a batch has
+     * failed since, because the watermark may then cover rows that were never stored.
+     */
+    public void checkpoint(String feedKey, FeedWatermark watermark, long failuresSeen) {
+        ensureOpen();
+        synchronized (this) {
+            if (failuresSeen != failedBatches) {
+                return;
+            }
+            pendingCheckpoints.remove(feedKey);
+            pendingCheckpoints.put(feedKey, new Checkpoint(feedKey, watermark.copy(), submitted));
+        }
+    }
+
+    /**
+     * Blocks until every item submitted before this call has been committed (or failed).
+     */
+    public void flush() throws InterruptedException {
+        synchronized (this) {
+            long target = submitted;
+            flushRequested = true;
+            while (processed < target && writerThread.isAlive()) {
+                wait(POLL_SLICE_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Drains the queue and commits the remaining rows. The pool itself stays open.
+     */
+    @Override
+    public void close() {
+        close(Long.MAX_VALUE);
+    }
+
+    /**
+     * Drains the queue and commits the remaining rows, waiting at most timeoutMillis. Rows not committed by
+     * then are abandoned: the writer thread stops after the batch it is committing, and a pending checkpoint
+     * of theirs is never written. Returns the number of abandoned rows (0 if the drain finished).
+     */
+    public long close(long timeoutMillis) {
+        if (closed) {
+            return 0;
+        }
+        closed = true;
+        metrics.removeQueueDepthGauge(queueDepthGauge);
+        try {
+            // join(0) would wait forever
+            writerThread.join(Math.max(1, timeoutMillis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long left = 0;
+        if (writerThread.isAlive()) {
+            abandoned = true;
+            synchronized (this) {
+                left = submitted - processed;
+            }
+        }
+        System.out.println("News writer closed" + (left > 0 ? " with " + left + " rows not committed" : "") + ". "
+                + statsSummary());
+        return left;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public long getRowsIgnored() {
+        return rowsIgnored;
+    }
+
+    public long getRowsFailed() {
+        return rowsFailed;
+    }
+
+    // Batches rolled back so far; FeedSink rewinds its watermark when this changes
+    public synchronized long getFailedBatches() {
+        return failedBatches;
+    }
+
+    public long getCommitCount() {
+        return commitCount;
+    }
+
+    public double getAverageCommitMillis() {
+        long commits = commitCount;
+        return commits == 0 ? 0.0 : totalCommitNanos / 1_000_000.0 / commits;
+    }
+
+    public double getMaxCommitMillis() {
+        return maxCommitNanos / 1_000_000.0;
+    }
+
+    public double getRowsPerSecond() {
+        double elapsedSeconds = (System.nanoTime() - startedAtNanos) / 1_000_000_000.0;
+        return elapsedSeconds <= 0 ? 0.0 : rowsWritten / elapsedSeconds;
+    }
+
+    public String statsSummary() {
+        return String.format("rows=%d duplicates=%d failed=%d commits=%d rows/sec=%.1f avgCommitMs=%.2f maxCommitMs=%.2f",
+                rowsWritten, rowsIgnored, rowsFailed, commitCount, getRowsPerSecond(),
+                getAverageCommitMillis(), getMaxCommitMillis());
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("NewsWriter is closed");
+        }
+    }
+
+    private synchronized void markSubmitted() {
+        submitted++;
+    }
+
+    // Writer thread: collect items into a batch and commit when it is full, old enough, or a flush/close asks for it
+    private void runLoop() {
+        List<News> batch = new ArrayList<>(batchSize);
+        long batchStartedAt = 0;
+
+        while (!abandoned) {
+            long now = System.currentTimeMillis();
+            long waitMillis = batch.isEmpty() ? flushIntervalMillis : batchStartedAt + flushIntervalMillis - now;
+            News next = null;
+            try {
+                next = queue.poll(Math.max(0, Math.min(waitMillis, POLL_SLICE_MILLIS)), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // Treat interruption as a close request so queued rows are not lost
+                closed = true;
+            }
+
+            if (next != null) {
+                if (batch.isEmpty()) {
+                    batchStartedAt = System.currentTimeMillis();
+                }
+                batch.add(next);
+                queue.drainTo(batch, batchSize - batch.size());
+            }
+
+            boolean full = batch.size() >= batchSize;
+            boolean expired = !batch.isEmpty() && System.currentTimeMillis() - batchStartedAt >= flushIntervalMillis;
+            boolean draining = closed || flushRequested;
+
+            if (full || expired || (draining && !batch.isEmpty())) {
+                commitBatch(batch);
+                batch.clear();
+                continue;
+            }
+
+            if (batch.isEmpty() && queue.isEmpty()) {
+                // Everything submitted so far is committed, so any pending checkpoint can be written now
+                if (hasPendingCheckpoints()) {
+                    commitBatch(batch);
+                    continue;
+                }
+                flushRequested = false;
+                if (closed) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private synchronized boolean hasPendingCheckpoints() {
+        return !pendingCheckpoints.isEmpty();
+    }
+
+    // Removes and returns the checkpoints whose items are all committed once the current batch is
+    private synchronized List<Checkpoint> takeDueCheckpoints(int batchSize) {
+        List<Checkpoint> due = new ArrayList<>();
+        Iterator<Checkpoint> it = pendingCheckpoints.values().iterator();
+        while (it.hasNext()) {
+            Checkpoint checkpoint = it.next();
+            if (checkpoint.afterSubmitted() <= processed + batchSize) {
+                due.add(checkpoint);
+                it.remove();
+            }
+        }
+        return due;
+    }
+
+    private void commitBatch(List<News> batch) {
+        long started = System.nanoTime();
+        List<Checkpoint> checkpoints = takeDueCheckpoints(batch.size());
+        if (batch.isEmpty()) {
+            commitCheckpoints(checkpoints);
+            return;
+        }
+        boolean failed = false;
+        try {
+            // Late rows for archived months go to their partitions first, the rest are committed with the
+            // checkpoints. If this fails after the partition write, the failure path below keeps the checkpoints
+            // out and the rows are fetched again, so the dedup key drops the ones already in the partition.
+            DatabaseHandler.CommittedNews committed = dbHandler.commitNews(batch, conn -> {
+                writeCheckpoints(conn, checkpoints);
+                return null;
+            });
+            long committedAt = System.currentTimeMillis();
+
+            // 'INSERT OR IGNORE' reports 0 for rows skipped by the unique dedup key
+            List<News> live = committed.live();
+            int[] results = committed.results();
+            int inserted = 0;
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] > 0) {
+                    inserted++;
+                    metrics.recordLag(committedAt - live.get(i).getNewsTimeMillis());
+                }
+            }
+            rowsWritten += inserted;
+            rowsIgnored += live.size() - inserted;
+            metrics.recordCommit((System.nanoTime() - started) / 1_000_000, inserted, live.size() - inserted);
+        } catch (SQLException e) {
+            // The checkpoints are rolled back with the rows; the pending ones and any built on the lost rows are
+            // discarded below, and the feeds rewind to their stored watermarks (FeedSink.baseline)
+            failed = true;
+            rowsFailed += batch.size();
+            metrics.recordFailedRows(batch.size());
+            e.printStackTrace();
+        }
+
+        long elapsed = System.nanoTime() - started;
+        commitCount++;
+        totalCommitNanos += elapsed;
+        if (elapsed > maxCommitNanos) {
+            maxCommitNanos = elapsed;
+        }
+
+        synchronized (this) {
+            processed += batch.size();
+            if (failed) {
+                failedBatches++;
+                pendingCheckpoints.clear();
+            }
+            notifyAll();
+        }
+    }
+
+    // Checkpoints with no rows left to wait for, in a transaction of their own
+    private void commitCheckpoints(List<Checkpoint> checkpoints) {
+        try {
+            pool.inTransaction(conn -> {
+                writeCheckpoints(conn, checkpoints);
+                return null;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void writeCheckpoints(ConnectionPool.PooledConnection conn, List<Checkpoint> checkpoints) throws SQLException {
+        if (checkpoints.isEmpty()) {
+            return;
+        }
+        PreparedStatement upsertStmt = conn.prepare(DatabaseHandler.UPSERT_WATERMARK_SQL);
+        for (Checkpoint checkpoint : checkpoints) {
+            DatabaseHandler.bindWatermark(upsertStmt, checkpoint.feedKey(), checkpoint.watermark());
+            upsertStmt.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,298 @@
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Counters and latency histograms for the scrape-to-store pipeline, replacing per-item console output.
+ *
+ * One process-wide instance is shared by the fetchers, sources and writers. It can be read over JMX
+ * (see PipelineMetricsMBean) or, via MetricsServer, as Prometheus text on a local HTTP port.
+ * All times are milliseconds; lag is an item's create_time compared with the time its row was committed.
+ */
+public class PipelineMetrics implements PipelineMetricsMBean {
+
+    public static final String JMX_NAME = "NewsScrapper:type=PipelineMetrics";
+
+    private static final PipelineMetrics GLOBAL = new PipelineMetrics();
+
+    private final LatencyHistogram fetchMillis = new LatencyHistogram();
+    private final LatencyHistogram parseMillis = new LatencyHistogram();
+    private final LatencyHistogram itemsPerPoll = new LatencyHistogram();
+    private final LatencyHistogram insertMillis = new LatencyHistogram();
+    private final LatencyHistogram lagMillis = new LatencyHistogram();
+
+    private final LongAdder fetchFailures = new LongAdder();
+    private final LongAdder pollFailures = new LongAdder();
+    private final LongAdder pollGaps = new LongAdder();
+    private final LongAdder itemsParsed = new LongAdder();
+    private final LongAdder itemsMalformed = new LongAdder();
+    private final LongAdder itemsQueued = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder rowsDuplicate = new LongAdder();
+    private final LongAdder rowsFailed = new LongAdder();
+
+    // Queue depth of every open NewsWriter, read on demand
+    private final List<IntSupplier> queueDepthGauges = new CopyOnWriteArrayList<>();
+
+    // Per-item console output ("Rich text: ...", "News saved successfully.") is off unless asked for
+    private volatile boolean itemLogging = false;
+
+    public static PipelineMetrics global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Registers the global instance with the platform MBean server; safe to call more than once.
+     */
+    public static void registerJmx() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(JMX_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(GLOBAL, name);
+            }
+        } catch (JMException e) {
+            System.err.println("Could not register metrics MBean " + JMX_NAME);
+            e.printStackTrace();
+        }
+    }
+
+    // ---- recording ----
+
+    public void recordFetch(long millis) {
+        fetchMillis.record(millis);
+    }
+
+    public void recordFetchFailure() {
+        fetchFailures.increment();
+    }
+
+    public void recordParse(long millis, int items) {
+        parseMillis.record(millis);
+        itemsParsed.add(items);
+    }
+
+    public void recordPoll(int newItems, boolean failed) {
+        if (failed) {
+            pollFailures.increment();
+        } else {
+            itemsPerPoll.record(newItems);
+        }
+    }
+
+    // A feed item the parser had to skip, e.g. for an unreadable create_time
+    public void recordMalformedItem() {
+        itemsMalformed.increment();
+    }
+
+    // A poll stopped at its page limit while the feed still had new items further down
+    public void recordPollGap() {
+        pollGaps.increment();
+    }
+
+    public void recordQueued() {
+        itemsQueued.increment();
+    }
+
+    public void recordCommit(long millis, int written, int duplicates) {
+        insertMillis.record(millis);
+        rowsWritten.add(written);
+        rowsDuplicate.add(duplicates);
+    }
+
+    public void recordFailedRows(int rows) {
+        rowsFailed.add(rows);
+    }
+
+    public void recordLag(long millis) {
+        lagMillis.record(millis);
+    }
+
+    public void addQueueDepthGauge(IntSupplier gauge) {
+        queueDepthGauges.add(gauge);
+    }
+
+    public void removeQueueDepthGauge(IntSupplier gauge) {
+        queueDepthGauges.remove(gauge);
+    }
+
+    // ---- reading (JMX) ----
+
+    @Override
+    public long getFetchCount() {
+        return fetchMillis.getCount();
+    }
+
+    @Override
+    public long getFetchFailures() {
+        return fetchFailures.sum();
+    }
+
+    @Override
+    public long getFetchMillisP50() {
+        return fetchMillis.getPercentile(0.50);
+    }
+
+    @Override
+    public long getFetchMillisP99() {
+        return fetchMillis.getPercentile(0.99);
+    }
+
+    @Override
+    public long getParseMillisP50() {
+        return parseMillis.getPercentile(0.50);
+    }
+
+    @Override
+    public long getParseMillisP99() {
+        return parseMillis.getPercentile(0.99);
+    }
+
+    @Override
+    public long getPollCount() {
+        return itemsPerPoll.getCount() + pollFailures.sum();
+    }
+
+    @Override
+    public long getPollGaps() {
+        return pollGaps.sum();
+    }
+
+    @Override
+    public double getItemsPerPollMean() {
+        return itemsPerPoll.getMean();
+    }
+
+    @Override
+    public long getItemsParsed() {
+        return itemsParsed.sum();
+    }
+
+    @Override
+    public long getItemsMalformed() {
+        return itemsMalformed.sum();
+    }
+
+    @Override
+    public long getRowsWritten() {
+        return rowsWritten.sum();
+    }
+
+    @Override
+    public long getRowsDuplicate() {
+        return rowsDuplicate.sum();
+    }
+
+    @Override
+    public long getRowsFailed() {
+        return rowsFailed.sum();
+    }
+
+    // Share of committed rows the unique dedup key rejected
+    @Override
+    public double getDuplicateRatio() {
+        long duplicates = rowsDuplicate.sum();
+        long total = rowsWritten.sum() + duplicates;
+        return total == 0 ? 0.0 : (double) duplicates / total;
+    }
+
+    @Override
+    public long getInsertMillisP50() {
+        return insertMillis.getPercentile(0.50);
+    }
+
+    @Override
+    public long getInsertMillisP99() {
+        return insertMillis.getPercentile(0.99);
+    }
+
+    @Override
+    public int getQueueDepth() {
+        int depth = 0;
+        for (IntSupplier gauge : queueDepthGauges) {
+            depth += gauge.getAsInt();
+        }
+        return depth;
+    }
+
+    @Override
+    public long getLagMillisP50() {
+        return lagMillis.getPercentile(0.50);
+    }
+
+    @Override
+    public long getLagMillisP99() {
+        return lagMillis.getPercentile(0.99);
+    }
+
+    @Override
+    public long getLagMillisMax() {
+        return lagMillis.getMax();
+    }
+
+    @Override
+    public boolean isItemLogging() {
+        return itemLogging;
+    }
+
+    @Override
+    public void setItemLogging(boolean itemLogging) {
+        this.itemLogging = itemLogging;
+    }
+
+    @Override
+    public String getSummary() {
+        return String.format("fetches=%d failures=%d fetchP50/P99=%d/%dms parseP50/P99=%d/%dms polls=%d gaps=%d items/poll=%.1f "
+                        + "malformed=%d rows=%d duplicates=%d (%.1f%%) failed=%d insertP50/P99=%d/%dms queue=%d lagP50/P99=%d/%dms",
+                getFetchCount(), getFetchFailures(), getFetchMillisP50(), getFetchMillisP99(),
+                getParseMillisP50(), getParseMillisP99(), getPollCount(), getPollGaps(), getItemsPerPollMean(),
+                getItemsMalformed(), getRowsWritten(), getRowsDuplicate(), getDuplicateRatio() * 100, getRowsFailed(),
+                getInsertMillisP50(), getInsertMillisP99(), getQueueDepth(), getLagMillisP50(), getLagMillisP99());
+    }
+
+    /**
+     * Renders every metric in the Prometheus text exposition format.
+     */
+    public String toPrometheusText() {
+        StringBuilder out = new StringBuilder(4096);
+        appendHistogram(out, "news_fetch_millis", "Time until a feed response starts streaming", fetchMillis);
+        appendHistogram(out, "news_parse_millis", "Time to stream-parse one feed response", parseMillis);
+        appendHistogram(out, "news_items_per_poll", "New items queued per successful poll", itemsPerPoll);
+        appendHistogram(out, "news_insert_millis", "Time to execute and commit one write batch", insertMillis);
+        appendHistogram(out, "news_lag_millis", "Item create_time to commit time", lagMillis);
+        appendValue(out, "news_fetch_failures_total", "counter", "Failed feed fetches", fetchFailures.sum());
+        appendValue(out, "news_poll_failures_total", "counter", "Failed source polls", pollFailures.sum());
+        appendValue(out, "news_poll_gaps_total", "counter", "Polls that stopped at the page limit with new items unread", pollGaps.sum());
+        appendValue(out, "news_items_parsed_total", "counter", "Items parsed that were newer than the watermark", itemsParsed.sum());
+        appendValue(out, "news_items_malformed_total", "counter", "Feed items skipped as unreadable", itemsMalformed.sum());
+        appendValue(out, "news_items_queued_total", "counter", "Items handed to the writer", itemsQueued.sum());
+        appendValue(out, "news_rows_written_total", "counter", "Rows inserted", rowsWritten.sum());
+        appendValue(out, "news_rows_duplicate_total", "counter", "Rows ignored by the dedup key", rowsDuplicate.sum());
+        appendValue(out, "news_rows_failed_total", "counter", "Rows lost to failed batches", rowsFailed.sum());
+        appendValue(out, "news_writer_queue_depth", "gauge", "Items waiting in writer queues", getQueueDepth());
+        return out.toString();
+    }
+
+    private static void appendHistogram(StringBuilder out, String name, String help, LatencyHistogram histogram) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" histogram\n");
+        for (int i = 0; i < LatencyHistogram.BUCKET_BOUNDS.length; i++) {
+            out.append(name).append("_bucket{le=\"").append(LatencyHistogram.BUCKET_BOUNDS[i]).append("\"} ")
+                    .append(histogram.getCumulativeCount(i)).append('\n');
+        }
+        out.append(name).append("_bucket{le=\"+Inf\"} ").append(histogram.getCount()).append('\n');
+        out.append(name).append("_sum ").append(histogram.getSum()).append('\n');
+        out.append(name).append("_count ").append(histogram.getCount()).append('\n');
+    }
+
+    private static void appendValue(StringBuilder out, String name, String type, String help, long value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        out.append(name).append(' ').append(value).append('\n');
+    }
+}
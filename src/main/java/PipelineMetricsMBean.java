@@ -0,0 +1,53 @@
+/**
+ * JMX view of PipelineMetrics (registered as NewsScrapper:type=PipelineMetrics).
+ */
+public interface PipelineMetricsMBean {
+
+    long getFetchCount();
+
+    long getFetchFailures();
+
+    long getFetchMillisP50();
+
+    long getFetchMillisP99();
+
+    long getParseMillisP50();
+
+    long getParseMillisP99();
+
+    long getPollCount();
+
+    long getPollGaps();
+
+    double getItemsPerPollMean();
+
+    long getItemsParsed();
+
+    long getItemsMalformed();
+
+    long getRowsWritten();
+
+    long getRowsDuplicate();
+
+    long getRowsFailed();
+
+    double getDuplicateRatio();
+
+    long getInsertMillisP50();
+
+    long getInsertMillisP99();
+
+    int getQueueDepth();
+
+    long getLagMillisP50();
+
+    long getLagMillisP99();
+
+    long getLagMillisMax();
+
+    boolean isItemLogging();
+
+    void setItemLogging(boolean itemLogging);
+
+    String getSummary();
+}
@@ -1,6 +1,3 @@
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
@@ -9,21 +6,25 @@ import org.openqa.selenium.logging.LogEntry;
 import org.openqa.selenium.logging.LogType;
 import org.openqa.selenium.logging.LoggingPreferences;
 
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.Properties;
 
-import java.io.InputStream;
-
 public class RealTimeNewsScraper {
 
-    private static volatile boolean keepRunning = true; // Flag to control the loop
+    // How long Selenium discovery waits for the page to request the feed
+    private static final int DISCOVERY_TIMEOUT_SECONDS = 60;
 
     public static void main(String[] args) {
 
@@ -44,149 +45,411 @@ public class RealTimeNewsScraper {
 
         // Retrieve each property (with optional defaults)
         String driverPath = config.getProperty("driverPath");
-        String targetUrl = config.getProperty("targetUrl", "https://finance.sina.com.cn/7x24/"); 
+        String targetUrl = config.getProperty("targetUrl", "https://finance.sina.com.cn/7x24/");
         String dynamicUrl = config.getProperty("dynamicUrl", "zhibo.sina.com.cn/api/zhibo/feed");
         int pollInterval = Integer.parseInt(config.getProperty("pollInterval", "5"));
-
-        // Set up your Selenium driver using the read properties
-        System.setProperty("webdriver.chrome.driver", driverPath);
+        String mode = config.getProperty("mode", "direct");
+        String feedUrl = config.getProperty("feedUrl", SinaFeedClient.DEFAULT_FEED_URL);
+        String zhiboId = config.getProperty("zhiboId", "152");
+        int pageSize = Integer.parseInt(config.getProperty("pageSize", "20"));
+        int pagesPerPoll = Integer.parseInt(config.getProperty("pagesPerPoll", "1"));
+        int fetchThreads = Integer.parseInt(config.getProperty("fetchThreads", "8"));
+        int perHostConcurrency = Integer.parseInt(config.getProperty("perHostConcurrency", "4"));
+        int fetchTimeoutSeconds = Integer.parseInt(config.getProperty("fetchTimeoutSeconds", "15"));
+        int urlCacheSize = Integer.parseInt(config.getProperty("urlCacheSize", "10000"));
+        int urlCacheTtlSeconds = Integer.parseInt(config.getProperty("urlCacheTtlSeconds", "600"));
+        int schedulerThreads = Integer.parseInt(config.getProperty("schedulerThreads", "4"));
+        boolean logItems = Boolean.parseBoolean(config.getProperty("logItems", "false"));
+        int metricsPort = Integer.parseInt(config.getProperty("metricsPort", "0"));
+        int readPoolSize = Integer.parseInt(config.getProperty("readPoolSize", "4"));
+        int hotWindowMinutes = Integer.parseInt(config.getProperty("hotWindowMinutes", "60"));
+        int shutdownTimeoutSeconds = Integer.parseInt(config.getProperty("shutdownTimeoutSeconds", "20"));
+        int pushPort = Integer.parseInt(config.getProperty("pushPort", "0"));
+        int pushBufferSize = Integer.parseInt(config.getProperty("pushBufferSize", "1000"));
+        int archiveAfterMonths = Integer.parseInt(config.getProperty("archiveAfterMonths", "0"));
+        String coldStorageDirectory = config.getProperty("coldStorageDirectory", "").trim();
+
+        // Set up your Selenium driver using the read properties (only needed for selenium mode or fallback discovery)
+        if (driverPath != null && !driverPath.isBlank()) {
+            System.setProperty("webdriver.chrome.driver", driverPath);
+        }
 
         // Continue with the rest of your logic...
+        System.out.println("Mode: " + mode);
         System.out.println("Driver path: " + driverPath);
         System.out.println("Target URL: " + targetUrl);
         System.out.println("Dynamic URL: " + dynamicUrl);
         System.out.println("Poll Interval (sec): " + pollInterval);
 
-        // Configure ChromeOptions with performance logging
-        ChromeOptions options = new ChromeOptions();
-        LoggingPreferences logPrefs = new LoggingPreferences();
-        logPrefs.enable(LogType.PERFORMANCE, Level.ALL);
-        options.setCapability("goog:loggingPrefs", logPrefs);
+        // Counters and histograms replace per-item console output, which stays available via logItems=true
+        PipelineMetrics metrics = PipelineMetrics.global();
+        metrics.setItemLogging(logItems);
+        PipelineMetrics.registerJmx();
+        MetricsServer metricsServer = null;
+        if (metricsPort > 0) {
+            try {
+                metricsServer = new MetricsServer(metricsPort, metrics);
+            } catch (IOException e) {
+                System.err.println("Could not start metrics endpoint on port " + metricsPort);
+                e.printStackTrace();
+            }
+        }
 
-        // Optional: run headless if you don't need the browser window
-        // options.addArguments("--headless");
+        // New items are published to in-process subscribers, and pushed over SSE if pushPort is set
+        NewsBus newsBus = new NewsBus();
+        NewsEventServer eventServer = null;
+        if (pushPort > 0) {
+            try {
+                eventServer = new NewsEventServer(pushPort, newsBus, pushBufferSize);
+            } catch (IOException e) {
+                System.err.println("Could not start push endpoint on port " + pushPort);
+                e.printStackTrace();
+            }
+        }
+
+        // Stop requests ('q', replay timer, SIGTERM) and the drain deadline
+        Lifecycle lifecycle = new Lifecycle(shutdownTimeoutSeconds * 1000L);
+
+        // Replay mode polls a local stand-in feed server and writes to a scratch database
+        ReplayFeedServer replayServer = null;
+        String databaseDirectory = DatabaseHandler.DB_DIRECTORY;
+        if (mode.equalsIgnoreCase("replay")) {
+            try {
+                replayServer = startReplay(config, lifecycle);
+            } catch (IOException e) {
+                System.err.println("Could not start the replay feed server.");
+                e.printStackTrace();
+                return;
+            }
+            databaseDirectory = config.getProperty("replay.databaseDirectory", "replay-db");
+        }
+
+        // Parsed items are handed to a batched writer instead of one connection per row
+        DatabaseHandler dbHandler = new DatabaseHandler(databaseDirectory, readPoolSize, hotWindowMinutes * 60_000L);
+        NewsWriter newsWriter;
+        try {
+            newsWriter = dbHandler.openWriter();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return;
+        }
 
-        WebDriver driver = new ChromeDriver(options);
+        // Old months are moved to partition files at startup and then once a day
+        ScheduledExecutorService archiver = archiveAfterMonths > 0
+                ? startArchiving(dbHandler, archiveAfterMonths,
+                        coldStorageDirectory.isEmpty() ? null : new File(coldStorageDirectory))
+                : null;
 
-        // Track processed URLs so we don't parse them multiple times
-        Set<String> processedUrls = new HashSet<>();
+        // Feed downloads share one HTTP client pool, and run concurrently on a bounded pool
+        FeedFetcher feedFetcher = new FeedFetcher(fetchThreads, perHostConcurrency, fetchTimeoutSeconds * 1000L);
 
-        // 3) Separate thread to listen for 'q' to quit
-        new Thread(() -> {
+        // 3) Separate thread to listen for 'q' to quit; a daemon, so it never keeps the JVM alive. Without a
+        // console (stdin closed, as in containers) it just ends and SIGTERM stops the program.
+        Thread console = new Thread(() -> {
             try (Scanner scanner = new Scanner(System.in)) {
                 System.out.println("Press 'q' and hit Enter to terminate the program.");
-                while (keepRunning) {
+                while (lifecycle.isRunning()) {
                     if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
-                        keepRunning = false;
+                        lifecycle.requestStop("'q' entered");
                     }
                 }
+            } catch (NoSuchElementException | IllegalStateException e) {
+                // No console input
             }
-        }).start();
+        }, "console");
+        console.setDaemon(true);
+        console.start();
+
+        // From here on a SIGTERM drains the pipeline (in-flight polls, queued rows, checkpoints) before exiting
+        lifecycle.installShutdownHook();
+        try {
+            if (mode.equalsIgnoreCase("selenium")) {
+                SinaFeedClient feedClient = new SinaFeedClient(feedUrl, zhiboId, pageSize, targetUrl);
+                FeedSink feedSink = new FeedSink(dbHandler, newsWriter, "sina:" + zhiboId, newsBus);
+                UrlDedupCache processedUrls = new UrlDedupCache(urlCacheSize, urlCacheTtlSeconds * 1000L);
+                runSeleniumPolling(feedClient, feedFetcher, processedUrls, targetUrl, dynamicUrl, pollInterval, feedSink,
+                        lifecycle);
+            } else {
+                runDirectPolling(config, dbHandler, newsWriter, newsBus, feedFetcher, schedulerThreads, lifecycle);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            // Draining gets whatever is left of the deadline; what does not fit is reported, not waited for
+            int fetchesLeft = 0;
+            try {
+                fetchesLeft = feedFetcher.close(lifecycle.remainingMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            long rowsLeft = newsWriter.close(lifecycle.remainingMillis());
+            if (fetchesLeft > 0 || rowsLeft > 0) {
+                System.err.println("Drain deadline passed: abandoned " + fetchesLeft + " running fetches and "
+                        + rowsLeft + " uncommitted rows (their feeds resume from the last stored checkpoint).");
+            }
+            if (archiver != null) {
+                archiver.shutdownNow();
+            }
+            if (eventServer != null) {
+                eventServer.close();
+            }
+            System.out.println("News bus: " + newsBus.statsSummary());
+            if (replayServer != null) {
+                replayServer.close();
+                System.out.println("Replay server: " + replayServer.statsSummary());
+            }
+            if (dbHandler.getHotWindow() != null) {
+                System.out.println("Hot window: " + dbHandler.getHotWindow().statsSummary());
+            }
+            dbHandler.close();
+            if (metricsServer != null) {
+                metricsServer.close();
+            }
+            System.out.println("Pipeline metrics: " + metrics.getSummary());
+            System.out.println("Program terminated.");
+            lifecycle.markStopped();
+        }
+    }
+
+    /**
+     * Starts a ReplayFeedServer for the replay.* settings and points the direct poller at it: feedUrl and
+     * dynamicUrl are replaced, and extra sources are dropped since the replay serves a single feed.
+     * With replay.durationSeconds set, the run stops by itself after that long.
+     */
+    private static ReplayFeedServer startReplay(Properties config, Lifecycle lifecycle) throws IOException {
+        File pagesDirectory = new File(config.getProperty("replay.pagesDirectory", "benchmarks/src/jmh/resources/fixtures"));
+        ReplayFeedServer.RatePattern rate = new ReplayFeedServer.RatePattern(
+                Double.parseDouble(config.getProperty("replay.itemsPerSecond", "2")),
+                Double.parseDouble(config.getProperty("replay.burstItemsPerSecond", "0")),
+                Long.parseLong(config.getProperty("replay.burstSeconds", "0")) * 1000L,
+                Long.parseLong(config.getProperty("replay.burstPeriodSeconds", "0")) * 1000L);
+        ReplayFeedServer server = new ReplayFeedServer(
+                Integer.parseInt(config.getProperty("replay.port", "0")),
+                ReplayFeedServer.loadRecordedItems(pagesDirectory),
+                rate,
+                Long.parseLong(config.getProperty("replay.latencyMillis", "0")),
+                Integer.parseInt(config.getProperty("replay.serverThreads", "8")));
+
+        config.setProperty("feedUrl", server.getFeedUrl());
+        config.setProperty("dynamicUrl", server.getFeedUrl().substring("http://".length()));
+        config.remove("sources");
+
+        long durationSeconds = Long.parseLong(config.getProperty("replay.durationSeconds", "0"));
+        if (durationSeconds > 0) {
+            Thread timer = new Thread(() -> {
+                try {
+                    TimeUnit.SECONDS.sleep(durationSeconds);
+                    lifecycle.requestStop("replay finished after " + durationSeconds + " s");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "replay-timer");
+            timer.setDaemon(true);
+            timer.start();
+        }
+        return server;
+    }
+
+    // Runs archiveOlderThan on a daemon thread now and every 24 hours
+    private static ScheduledExecutorService startArchiving(DatabaseHandler dbHandler, int months, File exportDirectory) {
+        ScheduledExecutorService archiver = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "news-archiver");
+            t.setDaemon(true);
+            return t;
+        });
+        archiver.scheduleWithFixedDelay(() -> {
+            try {
+                long moved = dbHandler.archiveOlderThan(months, exportDirectory);
+                if (moved > 0) {
+                    System.out.println("Archived " + moved + " news older than " + months + " months.");
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }, 0, 24, TimeUnit.HOURS);
+        return archiver;
+    }
+
+    /**
+     * Browserless mode: every configured source is polled directly over HTTP by a SourceScheduler, each on its
+     * own adaptive interval. Selenium is only started if a source keeps failing, to rediscover the URL shape.
+     */
+    private static void runDirectPolling(Properties config, DatabaseHandler dbHandler, NewsWriter newsWriter,
+                                         NewsBus newsBus, FeedFetcher feedFetcher, int schedulerThreads,
+                                         Lifecycle lifecycle) throws InterruptedException {
+        String targetUrl = config.getProperty("targetUrl", "https://finance.sina.com.cn/7x24/");
+        String dynamicUrl = config.getProperty("dynamicUrl", "zhibo.sina.com.cn/api/zhibo/feed");
+        // A replayed feed never changes shape, and Selenium must not go out to the real site during a replay
+        boolean replay = config.getProperty("mode", "direct").equalsIgnoreCase("replay");
+
+        try (SourceScheduler scheduler = new SourceScheduler(schedulerThreads)) {
+            // 'sources' lists source names; each reads source.<name>.<key>, falling back to the top-level <key>
+            String[] sourceNames = config.getProperty("sources", "").trim().isEmpty()
+                    ? new String[] {null}
+                    : config.getProperty("sources").split(",");
+
+            for (String name : sourceNames) {
+                String zhiboId = sourceProperty(config, name, "zhiboId", "152");
+                String feedUrl = sourceProperty(config, name, "feedUrl", SinaFeedClient.DEFAULT_FEED_URL);
+                int pageSize = Integer.parseInt(sourceProperty(config, name, "pageSize", "20"));
+                int pagesPerPoll = Integer.parseInt(sourceProperty(config, name, "pagesPerPoll", "1"));
+                long interval = Long.parseLong(sourceProperty(config, name, "pollInterval", "5")) * 1000L;
+                // The bounds always include the starting interval, whatever the per-source override says
+                long minInterval = Math.min(interval, Long.parseLong(sourceProperty(config, name, "minPollInterval",
+                        Long.toString(Math.max(1L, interval / 4000L)))) * 1000L);
+                long maxInterval = Math.max(interval, Long.parseLong(sourceProperty(config, name, "maxPollInterval",
+                        Long.toString(interval * 6 / 1000L))) * 1000L);
+
+                SinaFeedClient feedClient = new SinaFeedClient(feedUrl, zhiboId, pageSize, targetUrl);
+                SinaFeedSource source = new SinaFeedSource(zhiboId, feedClient, feedFetcher, dynamicUrl, pagesPerPoll,
+                        replay ? null : () -> discoverFeedUrl(targetUrl, dynamicUrl, lifecycle));
+                scheduler.register(source, new FeedSink(dbHandler, newsWriter, source.getKey(), newsBus),
+                        interval, minInterval, maxInterval);
+                System.out.println("Source " + source.getKey() + ": interval " + interval / 1000 + "s (adaptive "
+                        + minInterval / 1000 + "-" + maxInterval / 1000 + "s)");
+            }
+
+            System.out.println("Monitoring real-time updates (direct feed polling)...");
+            scheduler.start();
+            lifecycle.awaitStop();
+
+            // Let polls in flight finish (their items and checkpoints go to the writer, which is drained next)
+            scheduler.stop(lifecycle.remainingMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Per-source setting with fallback to the top-level setting of the same name
+    private static String sourceProperty(Properties config, String sourceName, String key, String defaultValue) {
+        String fallback = config.getProperty(key, defaultValue);
+        return sourceName == null ? fallback : config.getProperty("source." + sourceName.trim() + "." + key, fallback);
+    }
+
+    /**
+     * Legacy mode: keeps Chrome on the 7x24 page and scrapes every feed URL seen in its performance log.
+     */
+    private static void runSeleniumPolling(SinaFeedClient feedClient, FeedFetcher feedFetcher,
+                                           UrlDedupCache processedUrls, String targetUrl, String dynamicUrl,
+                                           int pollInterval, FeedSink feedSink, Lifecycle lifecycle)
+            throws InterruptedException {
+        WebDriver driver = createLoggingDriver();
 
         try {
             // 4) Navigate to the main page
             driver.get(targetUrl);
             System.out.println("Monitoring real-time updates...");
 
-            // 5) Main loop: poll performance logs every 5 seconds
-            while (keepRunning) {
-                LogEntries logs = driver.manage().logs().get(LogType.PERFORMANCE);
-                Set<String> currentBatchUrls = new HashSet<>();
-
+            // 5) Main loop: poll performance logs every pollInterval seconds
+            while (lifecycle.isRunning()) {
                 // 5a) Extract feed URLs from logs
-                for (LogEntry entry : logs) {
-                    String message = entry.getMessage();
-                    if (message.contains(dynamicUrl)) {
-                        int urlStartIndex = message.indexOf("https://");
-                        int urlEndIndex = message.indexOf("\"", urlStartIndex);
-                        if (urlStartIndex != -1 && urlEndIndex != -1) {
-                            String url = message.substring(urlStartIndex, urlEndIndex);
-                            currentBatchUrls.add(url);
-                        }
-                    }
-                }
+                Set<String> currentBatchUrls = extractFeedUrls(driver, dynamicUrl);
 
-                // 5b) Scrape only new feed URLs
-                for (String url : currentBatchUrls) {
-                    if (!processedUrls.contains(url)) {
-                        scrapeNewsFromUrl(url, dynamicUrl);
-                        processedUrls.add(url);
-                    }
-                }
+                // 5b) Scrape only feed URLs not processed recently (bounded cache), all of them concurrently
+                currentBatchUrls.removeIf(url -> !processedUrls.markIfNew(url));
+                scrapeFeedUrls(feedClient, feedFetcher, currentBatchUrls, dynamicUrl, feedSink);
 
-                // Sleep 5 seconds, then check again
-                TimeUnit.SECONDS.sleep(pollInterval);
+                // Sleep, then check again; a stop request ends the wait at once
+                lifecycle.awaitStop(pollInterval, TimeUnit.SECONDS);
             }
-
-        } catch (Exception e) {
-            e.printStackTrace();
         } finally {
             driver.quit();
-            System.out.println("Program terminated.");
+            System.out.println("Processed URL cache: " + processedUrls.statsSummary());
         }
     }
 
     /**
-     * Fetches the JSONP feed from Sina and parses "feed -> list".
+     * Opens the target page in a short-lived Chrome session and returns the first feed URL it requests,
+     * or null if none shows up within DISCOVERY_TIMEOUT_SECONDS.
      */
-    private static void scrapeNewsFromUrl(String url, String dynamicUrl) {
+    private static String discoverFeedUrl(String targetUrl, String dynamicUrl, Lifecycle lifecycle) {
+        WebDriver driver = null;
         try {
-            // Ensure it's really the feed endpoint
-            if (!url.contains(dynamicUrl)) {
-                System.out.println("Skipping non-feed URL: " + url);
-                return;
+            driver = createLoggingDriver();
+            driver.get(targetUrl);
+            for (int waited = 0; waited < DISCOVERY_TIMEOUT_SECONDS && lifecycle.isRunning(); waited++) {
+                Set<String> urls = extractFeedUrls(driver, dynamicUrl);
+                if (!urls.isEmpty()) {
+                    return urls.iterator().next();
+                }
+                TimeUnit.SECONDS.sleep(1);
             }
+            System.err.println("Selenium discovery found no feed URL on " + targetUrl);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("Selenium discovery failed.");
+            e.printStackTrace();
+        } finally {
+            if (driver != null) {
+                driver.quit();
+            }
+        }
+        return null;
+    }
 
-            System.out.println("Fetching data from: " + url);
-
-            // 1) Download the raw JSONP
-            Document doc = Jsoup.connect(url)
-                                .ignoreContentType(true)
-                                .get();
-            String rawJsonp = doc.body().text();
-
-            // 2) Extract pure JSON from JSONP wrapper
-            String pureJson = extractPureJson(rawJsonp);
-
-            // 3) Parse with Jackson
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(pureJson);
+    /**
+     * Starts Chrome with performance logging enabled so network requests can be read back.
+     */
+    private static WebDriver createLoggingDriver() {
+        // Configure ChromeOptions with performance logging
+        ChromeOptions options = new ChromeOptions();
+        LoggingPreferences logPrefs = new LoggingPreferences();
+        logPrefs.enable(LogType.PERFORMANCE, Level.ALL);
+        options.setCapability("goog:loggingPrefs", logPrefs);
 
-            // 4) Navigate to "feed -> list"
-            JsonNode listNode = root.path("result")
-                                    .path("data")
-                                    .path("feed")
-                                    .path("list");
+        // Optional: run headless if you don't need the browser window
+        // options.addArguments("--headless");
 
-            if (listNode.isArray()) {
-                for (JsonNode item : listNode) {
-                    // Example fields from your snippet: "rich_text", "create_time"
-                    String richText = item.path("rich_text").asText(null);
-                    String createTime = item.path("create_time").asText(null);
+        return new ChromeDriver(options);
+    }
 
-                    System.out.println("Rich text: " + (richText != null ? richText : "N/A"));
-                    System.out.println("Create time: " + (createTime != null ? createTime : "N/A"));
-                    System.out.println("---------------------------------");
+    /**
+     * Drains the driver's performance log and returns the feed URLs requested since the last call.
+     */
+    private static Set<String> extractFeedUrls(WebDriver driver, String dynamicUrl) {
+        LogEntries logs = driver.manage().logs().get(LogType.PERFORMANCE);
+        Set<String> urls = new HashSet<>();
+        for (LogEntry entry : logs) {
+            String message = entry.getMessage();
+            if (message.contains(dynamicUrl)) {
+                int urlStartIndex = message.indexOf("https://");
+                int urlEndIndex = message.indexOf("\"", urlStartIndex);
+                if (urlStartIndex != -1 && urlEndIndex != -1) {
+                    urls.add(message.substring(urlStartIndex, urlEndIndex));
                 }
-            } else {
-                System.out.println("No valid 'list' array found under feed->list.");
             }
-
-        } catch (Exception e) {
-            System.err.println("Failed to fetch or parse data from: " + url);
-            e.printStackTrace();
         }
+        return urls;
     }
 
     /**
-     * Strips the JSONP callback, e.g. try{jQuery1112({ "result":... })}catch(e){} -> { "result":... }
+     * Fetches and parses a set of feed URLs concurrently, queues every item newer than the watermark for saving,
+     * then checkpoints the watermark. If a URL failed, the watermark stays where it was instead, since the failed
+     * page may hold items older than the ones just queued. Returns how many URLs succeeded.
      */
-    private static String extractPureJson(String rawJsonp) {
-        int start = rawJsonp.indexOf('(');
-        int end = rawJsonp.lastIndexOf(')');
-        if (start != -1 && end != -1 && end > start) {
-            return rawJsonp.substring(start + 1, end).trim();
+    private static int scrapeFeedUrls(SinaFeedClient feedClient, FeedFetcher feedFetcher, Collection<String> urls,
+                                      String dynamicUrl, FeedSink feedSink) throws InterruptedException {
+        // Every page of this cycle is filtered against the same baseline, whatever order they complete in
+        FeedWatermark baseline = feedSink.baseline();
+
+        int succeeded = 0;
+        int newItems = 0;
+        for (FeedFetcher.FetchResult result : SinaFeedSource.fetchAll(feedClient, feedFetcher, urls, dynamicUrl, baseline)) {
+            if (result.isSuccess()) {
+                for (News news : result.getItems()) {
+                    if (feedSink.accept(news, baseline)) {
+                        newItems++;
+                    }
+                }
+                succeeded++;
+            }
+        }
+        PipelineMetrics.global().recordPoll(newItems, succeeded == 0 && !urls.isEmpty());
+
+        if (succeeded < urls.size()) {
+            feedSink.rewind(baseline);
+        } else {
+            feedSink.checkpoint(baseline);
         }
-        return rawJsonp; // fallback if it's unexpectedly already pure JSON
+        return succeeded;
     }
 }
@@ -0,0 +1,319 @@
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the Sina feed endpoint, so the poller, parser and database can be load-tested and
+ * profiled offline at any traffic level.
+ *
+ * Items are taken from recorded feed pages (plain JSON or JSONP, e.g. saved responses or the benchmark
+ * fixtures) and published oldest first at the rate given by a RatePattern, each with a fresh increasing id
+ * and the current time as create_time. Once every recorded item has been played the recording loops, with
+ * a " (replay N)" suffix so the copies are not deduplicated. Requests to FEED_PATH get the newest items,
+ * paged by "page" and "page_size" and wrapped as JSONP if a "callback" is given, like the real endpoint.
+ * Binds to the loopback address only.
+ */
+public class ReplayFeedServer implements AutoCloseable {
+
+    public static final String FEED_PATH = "/api/zhibo/feed";
+
+    // Newest items kept for paging; older ones fall off the feed, as they do on Sina
+    private static final int RETAINED_ITEMS = 5000;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    // Ids handed out per millisecond of start time, see the constructor
+    private static final long ID_SPACING = 1000;
+
+    private static final DateTimeFormatter CREATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Items per second over time: baseRate, raised to burstRate for the first burstMillis of every
+     * periodMillis (no bursts if either is 0).
+     */
+    public static final class RatePattern {
+        private final double baseRate;
+        private final double burstRate;
+        private final long burstMillis;
+        private final long periodMillis;
+
+        public RatePattern(double baseRate, double burstRate, long burstMillis, long periodMillis) {
+            if (baseRate < 0 || burstRate < 0 || burstMillis < 0 || periodMillis < 0) {
+                throw new IllegalArgumentException("Rates and durations must not be negative");
+            }
+            this.baseRate = baseRate;
+            this.burstRate = burstRate;
+            this.burstMillis = Math.min(burstMillis, periodMillis);
+            this.periodMillis = periodMillis;
+        }
+
+        // Total items published in the first elapsedMillis
+        long itemsDue(long elapsedMillis) {
+            double items = baseRate * elapsedMillis / 1000.0;
+            if (periodMillis > 0 && burstMillis > 0) {
+                long burstTime = elapsedMillis / periodMillis * burstMillis + Math.min(elapsedMillis % periodMillis, burstMillis);
+                items += (burstRate - baseRate) * burstTime / 1000.0;
+            }
+            return (long) items;
+        }
+
+        @Override
+        public String toString() {
+            return periodMillis > 0 && burstMillis > 0
+                    ? baseRate + "/s, " + burstRate + "/s for " + burstMillis + " ms every " + periodMillis + " ms"
+                    : baseRate + "/s";
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final List<ObjectNode> recordedItems;
+    private final RatePattern rate;
+    private final long latencyMillis;
+    private final long startedAt;
+
+    // Published items as serialized JSON, newest first; guarded by this
+    private final Deque<byte[]> feed = new ArrayDeque<>();
+    private long published = 0;
+    private long nextId;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong itemsServed = new AtomicLong();
+
+    /**
+     * Starts serving on the given port (0 picks a free one). latencyMillis delays every response, to stand in
+     * for the network; threads is the number of requests handled at once.
+     */
+    public ReplayFeedServer(int port, List<ObjectNode> recordedItems, RatePattern rate, long latencyMillis,
+                            int threads) throws IOException {
+        if (recordedItems.isEmpty()) {
+            throw new IllegalArgumentException("No recorded feed items to replay");
+        }
+        this.recordedItems = recordedItems;
+        this.rate = rate;
+        this.latencyMillis = latencyMillis;
+
+        // Ids start above the recording and above every earlier run (a run would have to publish more than
+        // ID_SPACING items per millisecond to catch up with the next one), so neither the watermark of a real
+        // run nor the one a previous replay left in the same database hides replayed items
+        long maxId = 0;
+        for (ObjectNode item : recordedItems) {
+            maxId = Math.max(maxId, item.path("id").asLong(0L));
+        }
+        this.nextId = Math.max(maxId, System.currentTimeMillis() * ID_SPACING) + 1;
+
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "replay-feed-server");
+            t.setDaemon(true);
+            return t;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(executor);
+        server.createContext(FEED_PATH, this::handle);
+        this.startedAt = System.currentTimeMillis();
+        server.start();
+        System.out.println("Replaying " + recordedItems.size() + " recorded items at " + rate + " on " + getFeedUrl());
+    }
+
+    /**
+     * Reads the feed items of every recorded page (*.json, *.jsonp, *.js) in a directory, oldest first,
+     * dropping repeats of the same id.
+     */
+    public static List<ObjectNode> loadRecordedItems(File directory) throws IOException {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".json") || name.endsWith(".jsonp") || name.endsWith(".js"));
+        if (files == null) {
+            throw new IOException("Not a directory: " + directory);
+        }
+        Arrays.sort(files);
+
+        Map<Long, ObjectNode> byId = new TreeMap<>();
+        List<ObjectNode> withoutId = new ArrayList<>();
+        for (File file : files) {
+            String body = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            JsonNode list = MAPPER.readTree(SinaFeedParser.extractPureJson(body))
+                    .path("result").path("data").path("feed").path("list");
+            for (JsonNode item : list) {
+                if (item instanceof ObjectNode) {
+                    long id = item.path("id").asLong(0L);
+                    if (id > 0) {
+                        byId.putIfAbsent(id, (ObjectNode) item);
+                    } else {
+                        withoutId.add((ObjectNode) item);
+                    }
+                }
+            }
+        }
+        List<ObjectNode> items = new ArrayList<>(byId.values());
+        items.addAll(withoutId);
+        items.sort(Comparator.comparing(item -> item.path("create_time").asText("")));
+        return items;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public String getFeedUrl() {
+        return "http://127.0.0.1:" + getPort() + FEED_PATH;
+    }
+
+    public synchronized long getItemsPublished() {
+        return published;
+    }
+
+    public String statsSummary() {
+        return "requests=" + requests.get() + ", published=" + getItemsPublished() + ", served=" + itemsServed.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            if (!"GET".equals(exchange.getRequestMethod()) || !FEED_PATH.equals(exchange.getRequestURI().getPath())) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            int page = Math.max(1, parseInt(query.get("page"), 1));
+            int pageSize = Math.min(MAX_PAGE_SIZE, Math.max(1, parseInt(query.get("page_size"), 20)));
+            String callback = query.get("callback");
+
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            byte[] body = render(page, pageSize, callback);
+            exchange.getResponseHeaders().set("Content-Type",
+                    (callback != null ? "application/javascript" : "application/json") + "; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // One feed page in the shape SinaFeedParser reads: result.data.feed.list
+    private byte[] render(int page, int pageSize, String callback) throws IOException {
+        List<byte[]> items = new ArrayList<>(pageSize);
+        long total;
+        synchronized (this) {
+            publishDue(System.currentTimeMillis());
+            total = feed.size();
+            Iterator<byte[]> it = feed.iterator();
+            for (long skip = (long) (page - 1) * pageSize; skip > 0 && it.hasNext(); skip--) {
+                it.next();
+            }
+            while (items.size() < pageSize && it.hasNext()) {
+                items.add(it.next());
+            }
+        }
+        itemsServed.addAndGet(items.size());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256 + items.size() * 1024);
+        if (callback != null) {
+            out.write(("try{" + callback + "(").getBytes(StandardCharsets.UTF_8));
+        }
+        out.write(("{\"result\":{\"status\":{\"code\":0,\"msg\":\"OK\"},\"data\":{\"feed\":{\"page_info\":{\"page\":"
+                + page + ",\"pageSize\":" + pageSize + ",\"totalNum\":" + total + "},\"list\":[")
+                .getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(items.get(i));
+        }
+        out.write("]}}}}".getBytes(StandardCharsets.UTF_8));
+        if (callback != null) {
+            out.write(");}catch(e){};".getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    // Publish every item the rate pattern has made due by now; called with the lock held
+    private void publishDue(long now) throws IOException {
+        long due = rate.itemsDue(now - startedAt);
+
+        // After a long gap only the retained tail would survive, so skip straight to it
+        if (due - published > RETAINED_ITEMS) {
+            nextId += due - published - RETAINED_ITEMS;
+            published = due - RETAINED_ITEMS;
+        }
+
+        String createTime = LocalDateTime.now().format(CREATE_TIME);
+        while (published < due) {
+            ObjectNode item = recordedItems.get((int) (published % recordedItems.size())).deepCopy();
+            long cycle = published / recordedItems.size();
+            item.put("id", nextId++);
+            item.put("create_time", createTime);
+            item.put("update_time", createTime);
+            if (cycle > 0) {
+                item.put("rich_text", item.path("rich_text").asText("") + " (replay " + cycle + ")");
+            }
+            feed.addFirst(MAPPER.writeValueAsBytes(item));
+            if (feed.size() > RETAINED_ITEMS) {
+                feed.removeLast();
+            }
+            published++;
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.putIfAbsent(key, value);
+        }
+        return params;
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
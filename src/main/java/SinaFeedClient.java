@@ -0,0 +1,141 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Browserless client for the Sina 7x24 feed endpoint (zhibo.sina.com.cn/api/zhibo/feed).
+ *
+ * Builds the feed URL itself instead of sniffing it from Chrome's performance log, and fetches it over
+ * one shared HttpClient so connections are reused between polls.
+ */
+public class SinaFeedClient {
+
+    public static final String DEFAULT_FEED_URL = "https://zhibo.sina.com.cn/api/zhibo/feed";
+
+    // Query parameters that change per request and must not be copied from a discovered URL
+    private static final String[] VOLATILE_PARAMS = {"callback", "_", "page", "id"};
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private final HttpClient httpClient;
+    private final String referer;
+
+    // Endpoint and fixed query parameters; replaced wholesale when Selenium discovers a new template
+    private volatile String feedUrl;
+    private volatile Map<String, String> baseParams;
+
+    public SinaFeedClient(String feedUrl, String zhiboId, int pageSize, String referer) {
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(CONNECT_TIMEOUT)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.referer = referer;
+        this.feedUrl = feedUrl;
+
+        // Parameters the 7x24 page itself sends; tag_id=0 means all categories, dire=f pages forward
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("page_size", Integer.toString(pageSize));
+        params.put("zhibo_id", zhiboId);
+        params.put("tag_id", "0");
+        params.put("dire", "f");
+        params.put("dpc", "1");
+        params.put("type", "0");
+        this.baseParams = params;
+    }
+
+    /**
+     * Builds the feed URL for a page, counted from the newest item. New items only push older ones to later
+     * pages, so walking page numbers never skips an item. No JSONP callback is requested, so the endpoint
+     * answers with plain JSON.
+     */
+    public String buildFeedUrl(int page) {
+        StringBuilder url = new StringBuilder(feedUrl).append("?page=").append(page);
+        for (Map.Entry<String, String> param : baseParams.entrySet()) {
+            url.append('&').append(encode(param.getKey())).append('=').append(encode(param.getValue()));
+        }
+        return url.toString();
+    }
+
+    // Items per page as currently requested (a discovered template may change it); 0 if the server decides
+    public int getPageSize() {
+        try {
+            return Integer.parseInt(baseParams.getOrDefault("page_size", "0"));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Downloads a feed URL and returns the body as a stream, for parsers that read it incrementally.
+     * The caller must close the stream.
+     */
+    public InputStream fetchStream(String url) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = httpClient.send(newRequest(url), HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("HTTP " + response.statusCode() + " from " + url);
+        }
+        return response.body();
+    }
+
+    /**
+     * Adopts the endpoint and fixed parameters of a feed URL discovered by the Selenium fallback,
+     * dropping per-request parameters such as the JSONP callback and cache-buster.
+     */
+    public void adoptTemplate(String discoveredUrl) {
+        int queryStart = discoveredUrl.indexOf('?');
+        String endpoint = queryStart == -1 ? discoveredUrl : discoveredUrl.substring(0, queryStart);
+
+        Map<String, String> params = new LinkedHashMap<>();
+        if (queryStart != -1) {
+            for (String pair : discoveredUrl.substring(queryStart + 1).split("&")) {
+                int eq = pair.indexOf('=');
+                String key = decode(eq == -1 ? pair : pair.substring(0, eq));
+                String value = eq == -1 ? "" : decode(pair.substring(eq + 1));
+                if (!key.isEmpty() && !isVolatile(key)) {
+                    params.put(key, value);
+                }
+            }
+        }
+
+        this.feedUrl = endpoint;
+        this.baseParams = params;
+        System.out.println("Feed template updated: " + buildFeedUrl(1));
+    }
+
+    private HttpRequest newRequest(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Referer", referer)
+                .header("User-Agent", "Mozilla/5.0 (compatible; NewsScrapper)")
+                .GET()
+                .build();
+    }
+
+    private static boolean isVolatile(String key) {
+        for (String param : VOLATILE_PARAMS) {
+            if (param.equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String decode(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+}
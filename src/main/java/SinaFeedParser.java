@@ -0,0 +1,210 @@
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming parser for Sina feed responses.
+ *
+ * Reads the HTTP body directly: the JSONP wrapper is skipped in-stream and "result.data.feed.list"
+ * is walked token by token with Jackson's JsonParser, so no DOM, body string or JsonNode tree is
+ * built. Only the fields a News needs are materialized.
+ */
+public class SinaFeedParser {
+
+    // Thread-safe once configured; shared so every parse reuses the same factory and symbol tables
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private SinaFeedParser() {
+    }
+
+    /**
+     * Parses a feed body (plain JSON or JSONP) into News items, skipping items that are not newer than the
+     * baseline watermark. Throws if the body has no "result.data.feed.list" array.
+     */
+    public static List<News> parse(InputStream body, FeedWatermark baseline) throws IOException {
+        List<News> items = new ArrayList<>();
+        try (JsonParser parser = MAPPER.getFactory().createParser(skipJsonpPrefix(body))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT
+                    || !seekField(parser, "result", JsonToken.START_OBJECT)
+                    || !seekField(parser, "data", JsonToken.START_OBJECT)
+                    || !seekField(parser, "feed", JsonToken.START_OBJECT)
+                    || !seekField(parser, "list", JsonToken.START_ARRAY)) {
+                throw new IOException("No valid 'list' array found under feed->list.");
+            }
+
+            // Stop at the end of the list; the rest of the body (and any ")}catch(e){}" tail) is never read
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                if (token == JsonToken.START_OBJECT) {
+                    News news = readItem(parser, baseline);
+                    if (news != null) {
+                        items.add(news);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Convenience overload for a body already held in memory, e.g. a recorded fixture.
+     */
+    public static List<News> parse(String body, FeedWatermark baseline) throws IOException {
+        return parse(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), baseline);
+    }
+
+    /**
+     * Strips the JSONP callback, e.g. try{jQuery1112({ "result":... })}catch(e){} -> { "result":... }
+     */
+    public static String extractPureJson(String rawJsonp) {
+        // Plain JSON may contain '(' inside text, so return it untouched
+        String trimmed = rawJsonp.trim();
+        if (trimmed.startsWith("{") || trimmed.startsWith("[")) {
+            return trimmed;
+        }
+
+        int start = rawJsonp.indexOf('(');
+        int end = rawJsonp.lastIndexOf(')');
+        if (start != -1 && end != -1 && end > start) {
+            return rawJsonp.substring(start + 1, end).trim();
+        }
+        return rawJsonp; // fallback if it's unexpectedly already pure JSON
+    }
+
+    /**
+     * Positions the stream at the first byte of the JSON value: plain JSON is passed through, otherwise
+     * everything up to and including the callback's '(' is consumed.
+     */
+    static InputStream skipJsonpPrefix(InputStream body) throws IOException {
+        PushbackInputStream in = new PushbackInputStream(body, 1);
+        int b = in.read();
+
+        // UTF-8 byte order mark
+        if (b == 0xEF) {
+            in.read();
+            in.read();
+            b = in.read();
+        }
+        while (b != -1 && Character.isWhitespace(b)) {
+            b = in.read();
+        }
+        if (b == '{' || b == '[') {
+            in.unread(b);
+            return in;
+        }
+        while (b != -1 && b != '(') {
+            b = in.read();
+        }
+        return in;
+    }
+
+    // Within the current object, advance to the value of the named field; other fields are skipped
+    private static boolean seekField(JsonParser parser, String name, JsonToken expected) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (name.equals(field)) {
+                return value == expected;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    // Reads one feed item object; returns null if it is incomplete, malformed or already covered by the baseline
+    private static News readItem(JsonParser parser, FeedWatermark baseline) throws IOException {
+        long sourceId = 0L;
+        Timestamp newsTime = null;
+        String richText = null;
+        String category = null;
+        boolean stale = false;
+        boolean malformed = false;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            // Once an item is known to be old or unusable, its remaining fields are skipped without being decoded
+            if (stale || malformed) {
+                parser.skipChildren();
+                continue;
+            }
+
+            switch (field) {
+                case "id":
+                    sourceId = parser.getValueAsLong(0L);
+                    break;
+                case "create_time":
+                    String createTime = parser.getValueAsString();
+                    try {
+                        newsTime = createTime != null ? Timestamp.valueOf(createTime.trim()) : null;
+                    } catch (IllegalArgumentException e) {
+                        // One bad item must not fail the page: the rest of it is still stored
+                        malformed = true;
+                    }
+                    break;
+                case "rich_text":
+                    richText = parser.getValueAsString();
+                    break;
+                case "tag":
+                    category = readFirstTagName(parser, value);
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+
+            if (newsTime != null && sourceId > 0 && !baseline.isNewer(sourceId, newsTime.getTime())) {
+                stale = true;
+            }
+        }
+
+        if (malformed) {
+            PipelineMetrics.global().recordMalformedItem();
+            System.err.println("Skipping feed item " + sourceId + " with a malformed create_time");
+            return null;
+        }
+        if (stale || newsTime == null || richText == null || !baseline.isNewer(sourceId, newsTime.getTime())) {
+            return null;
+        }
+        return new News(newsTime, category, richText, sourceId);
+    }
+
+    // Uses the first tag name of a feed item as its category, e.g. "tag":[{"id":"10","name":"..."}]
+    private static String readFirstTagName(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+
+        String first = null;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token == JsonToken.START_OBJECT && first == null) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    if (field.equals("name")) {
+                        first = parser.getValueAsString();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return first;
+    }
+}
@@ -0,0 +1,196 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One Sina 7x24 feed (a zhibo_id) polled directly over HTTP.
+ *
+ * Each poll fetches the first pagesPerPoll pages concurrently through the shared FeedFetcher. While every page
+ * is full of new items, the next pagesPerPoll pages are fetched too, until a page reaches the watermark, so a
+ * burst between two polls is read in full before the watermark moves past it. If a page fails while it may
+ * still hold new items, the whole poll fails: the newer items of the other pages would otherwise move the
+ * watermark past the missing ones. If the feed keeps failing, the optional discoverer (Selenium) is asked for
+ * the current URL shape.
+ */
+public class SinaFeedSource implements NewsSource {
+
+    /**
+     * Finds a working feed URL when the built one stops answering; returns null if none was found.
+     */
+    public interface UrlDiscoverer {
+        String discover();
+    }
+
+    // Rediscover the feed URL after this many failed polls in a row
+    private static final int MAX_FAILURES_BEFORE_DISCOVERY = 3;
+
+    // Deepest page one poll catches up to. A feed further ahead of the watermark than this (e.g. after a long
+    // outage) would otherwise never be caught up, so the poll keeps what it read and reports the gap instead.
+    private static final int MAX_CATCH_UP_PAGES = 100;
+
+    private final String key;
+    private final SinaFeedClient feedClient;
+    private final FeedFetcher feedFetcher;
+    private final String dynamicUrl;
+    private final int pagesPerPoll;
+    private final UrlDiscoverer discoverer;
+    private int consecutiveFailures = 0;
+
+    public SinaFeedSource(String zhiboId, SinaFeedClient feedClient, FeedFetcher feedFetcher, String dynamicUrl,
+                          int pagesPerPoll, UrlDiscoverer discoverer) {
+        this.key = "sina:" + zhiboId;
+        this.feedClient = feedClient;
+        this.feedFetcher = feedFetcher;
+        this.dynamicUrl = dynamicUrl;
+        this.pagesPerPoll = pagesPerPoll;
+        this.discoverer = discoverer;
+    }
+
+    @Override
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public List<News> poll(FeedWatermark baseline) throws Exception {
+        List<News> items = new ArrayList<>();
+        // Items arriving between two rounds push older ones down a page, so a later round can see them again
+        Set<Long> seenIds = new HashSet<>();
+        // Pages come newest first, so a page with fewer new items than pageSize means the later ones hold none
+        int pageSize = feedClient.getPageSize();
+        for (int firstPage = 1; ; firstPage += pagesPerPoll) {
+            int lastPage = firstPage + pagesPerPoll - 1;
+            List<String> urls = new ArrayList<>(pagesPerPoll);
+            for (int page = firstPage; page <= lastPage; page++) {
+                urls.add(feedClient.buildFeedUrl(page));
+            }
+
+            Exception firstError = null;
+            int succeeded = 0;
+            int firstFailedPage = Integer.MAX_VALUE;
+            int firstExhaustedPage = Integer.MAX_VALUE;
+            for (FeedFetcher.FetchResult result : fetchAll(feedClient, feedFetcher, urls, dynamicUrl, baseline)) {
+                int page = firstPage + urls.indexOf(result.getUrl());
+                if (result.isSuccess()) {
+                    for (News news : result.getItems()) {
+                        if (news.getSourceId() <= 0 || seenIds.add(news.getSourceId())) {
+                            items.add(news);
+                        }
+                    }
+                    succeeded++;
+                    if (pageSize > 0 && result.getItems().size() < pageSize) {
+                        firstExhaustedPage = Math.min(firstExhaustedPage, page);
+                    }
+                } else {
+                    firstFailedPage = Math.min(firstFailedPage, page);
+                    if (firstError == null) {
+                        firstError = result.getError();
+                    }
+                }
+            }
+
+            if (firstExhaustedPage < firstFailedPage) {
+                // Reached the watermark before any failed page
+                consecutiveFailures = 0;
+                return items;
+            }
+            if (firstError != null) {
+                if (succeeded > 0 || firstPage > 1) {
+                    // The URL shape works, so this is no reason to rediscover; the next poll retries from the same baseline
+                    consecutiveFailures = 0;
+                } else {
+                    countFailedPoll();
+                }
+                throw firstError;
+            }
+
+            // Every page was full of new items. Without a page size there is no telling, and with an empty
+            // watermark (first run) the whole feed is new, so only the first pages are taken.
+            if (pageSize <= 0 || baseline.isEmpty()) {
+                consecutiveFailures = 0;
+                return items;
+            }
+            if (lastPage >= MAX_CATCH_UP_PAGES) {
+                PipelineMetrics.global().recordPollGap();
+                System.err.println(key + " is more than " + lastPage + " pages ahead of " + baseline
+                        + "; older new items are skipped");
+                consecutiveFailures = 0;
+                return items;
+            }
+        }
+    }
+
+    // A poll that read nothing: rediscover the URL if the feed keeps failing
+    private void countFailedPoll() {
+        if (++consecutiveFailures >= MAX_FAILURES_BEFORE_DISCOVERY && discoverer != null) {
+            System.out.println(key + " failed " + consecutiveFailures + " times in a row, rediscovering feed URL...");
+            String discovered = discoverer.discover();
+            if (discovered != null) {
+                feedClient.adoptTemplate(discovered);
+            }
+            consecutiveFailures = 0;
+        }
+    }
+
+    /**
+     * Fetches and parses a set of feed URLs concurrently, keeping only items newer than the baseline.
+     * Failures are logged as they arrive. Returns every URL's result in completion order.
+     */
+    static List<FeedFetcher.FetchResult> fetchAll(SinaFeedClient feedClient, FeedFetcher feedFetcher,
+                                                  Collection<String> urls, String dynamicUrl,
+                                                  FeedWatermark baseline) throws InterruptedException {
+        List<FeedFetcher.FetchResult> results = new ArrayList<>(urls.size());
+        feedFetcher.fetchAll(urls,
+                url -> fetchFeedItems(feedClient, url, dynamicUrl, baseline),
+                result -> {
+                    if (!result.isSuccess()) {
+                        PipelineMetrics.global().recordFetchFailure();
+                        System.err.println("Failed to fetch or parse data from: " + result.getUrl());
+                        result.getError().printStackTrace();
+                    }
+                    results.add(result);
+                });
+        return results;
+    }
+
+    /**
+     * Fetches the JSONP feed from Sina and stream-parses "feed -> list" into News items, skipping items that
+     * are not newer than the baseline watermark. Throws if the download failed or the response had no feed list.
+     */
+    static List<News> fetchFeedItems(SinaFeedClient feedClient, String url, String dynamicUrl,
+                                     FeedWatermark baseline) throws IOException, InterruptedException {
+        // Ensure it's really the feed endpoint
+        if (!url.contains(dynamicUrl)) {
+            throw new IOException("Skipping non-feed URL: " + url);
+        }
+
+        PipelineMetrics metrics = PipelineMetrics.global();
+        if (metrics.isItemLogging()) {
+            System.out.println("Fetching data from: " + url);
+        }
+
+        // Stream the body straight into the parser: no body string, no JSONP substring, no JsonNode tree.
+        // Fetch time runs until the response headers arrive; the body is read while parsing.
+        long started = System.nanoTime();
+        List<News> items;
+        try (InputStream body = feedClient.fetchStream(url)) {
+            long fetched = System.nanoTime();
+            metrics.recordFetch((fetched - started) / 1_000_000);
+            items = SinaFeedParser.parse(body, baseline);
+            metrics.recordParse((System.nanoTime() - fetched) / 1_000_000, items.size());
+        }
+
+        if (metrics.isItemLogging()) {
+            for (News news : items) {
+                System.out.println("Rich text: " + news.getContent());
+                System.out.println("Create time: " + news.getNewsTime());
+                System.out.println("---------------------------------");
+            }
+        }
+        return items;
+    }
+}
@@ -0,0 +1,147 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Polls many NewsSources concurrently, each on its own adaptive interval.
+ *
+ * A source that produced new items is polled again sooner (interval halved, down to its minimum); an idle
+ * source backs off by half its interval, and a failing one doubles it, both up to its maximum. Quiet feeds
+ * therefore cost few requests while busy ones are followed closely. A source is never polled concurrently
+ * with itself: its next poll is only scheduled once the current one has finished.
+ */
+public class SourceScheduler implements AutoCloseable {
+
+    /**
+     * Scheduling state of one registered source.
+     */
+    private static final class ScheduledSource {
+        final NewsSource source;
+        final FeedSink sink;
+        final long minIntervalMillis;
+        final long maxIntervalMillis;
+        long intervalMillis;
+
+        ScheduledSource(NewsSource source, FeedSink sink, long intervalMillis, long minIntervalMillis,
+                        long maxIntervalMillis) {
+            this.source = source;
+            this.sink = sink;
+            this.intervalMillis = intervalMillis;
+            this.minIntervalMillis = minIntervalMillis;
+            this.maxIntervalMillis = maxIntervalMillis;
+        }
+    }
+
+    private final ScheduledThreadPoolExecutor executor;
+    private final List<ScheduledSource> sources = new ArrayList<>();
+    private volatile boolean running = false;
+
+    public SourceScheduler(int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(threads, runnable -> {
+            Thread thread = new Thread(runnable, "source-poll-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // On stop, drop polls that are only waiting for their interval instead of sleeping through it
+        this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Registers a source with its starting interval and the bounds the adaptive interval stays within.
+     */
+    public synchronized void register(NewsSource source, FeedSink sink, long intervalMillis,
+                                      long minIntervalMillis, long maxIntervalMillis) {
+        if (minIntervalMillis <= 0 || minIntervalMillis > intervalMillis || intervalMillis > maxIntervalMillis) {
+            throw new IllegalArgumentException("Intervals must satisfy 0 < min <= interval <= max for " + source.getKey());
+        }
+        ScheduledSource scheduled = new ScheduledSource(source, sink, intervalMillis, minIntervalMillis, maxIntervalMillis);
+        sources.add(scheduled);
+        if (running) {
+            executor.execute(() -> pollAndReschedule(scheduled));
+        }
+    }
+
+    /**
+     * Starts polling every registered source immediately.
+     */
+    public synchronized void start() {
+        running = true;
+        for (ScheduledSource scheduled : sources) {
+            executor.execute(() -> pollAndReschedule(scheduled));
+        }
+    }
+
+    /**
+     * Stops scheduling new polls and waits up to the timeout for running ones to finish.
+     */
+    public void stop(long timeout, TimeUnit unit) throws InterruptedException {
+        running = false;
+        executor.shutdown();
+        if (!executor.awaitTermination(timeout, unit)) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            stop(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void pollAndReschedule(ScheduledSource scheduled) {
+        if (!running) {
+            return;
+        }
+
+        int newItems = 0;
+        boolean failed = false;
+        FeedWatermark baseline = scheduled.sink.baseline();
+        try {
+            for (News news : scheduled.source.poll(baseline)) {
+                if (scheduled.sink.accept(news, baseline)) {
+                    newItems++;
+                }
+            }
+            scheduled.sink.checkpoint(baseline);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            failed = true;
+            System.err.println("Poll of " + scheduled.source.getKey() + " failed: " + e.getMessage());
+        }
+
+        PipelineMetrics.global().recordPoll(newItems, failed);
+        scheduled.intervalMillis = nextInterval(scheduled, newItems, failed);
+        if (running) {
+            try {
+                executor.schedule(() -> pollAndReschedule(scheduled), scheduled.intervalMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // The scheduler is shutting down
+            }
+        }
+    }
+
+    // Faster while a feed is busy, slower while it is idle, and slower still while it is failing
+    private static long nextInterval(ScheduledSource scheduled, int newItems, boolean failed) {
+        long current = scheduled.intervalMillis;
+        long next;
+        if (failed) {
+            next = current * 2;
+        } else if (newItems > 0) {
+            next = current / 2;
+        } else {
+            next = current + current / 2;
+        }
+        return Math.max(scheduled.minIntervalMillis, Math.min(scheduled.maxIntervalMillis, next));
+    }
+}
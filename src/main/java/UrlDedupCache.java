@@ -0,0 +1,129 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded record of recently processed feed URLs, replacing an ever-growing HashSet.
+ *
+ * URLs are normalized first by dropping per-request parameters (the JSONP callback and the "_"
+ * cache-buster), so repeated requests for the same feed page hit the cache. The oldest entries are
+ * evicted once maxEntries is reached, and entries expire after ttlMillis so a page is eventually
+ * fetched again.
+ */
+public class UrlDedupCache {
+
+    // Parameters that differ on every request without changing the response
+    private static final String[] VOLATILE_PARAMS = {"callback", "_"};
+
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    // Normalized URL -> time it was marked; insertion order makes iteration oldest-first
+    private final LinkedHashMap<String, Long> entries;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public UrlDedupCache(int maxEntries, long ttlMillis) {
+        if (maxEntries <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("maxEntries and ttlMillis must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>();
+    }
+
+    /**
+     * Records the URL and returns true if it was not seen within the TTL (i.e. it should be processed).
+     */
+    public synchronized boolean markIfNew(String url) {
+        long now = System.currentTimeMillis();
+        expire(now);
+
+        String key = normalize(url);
+        Long markedAt = entries.get(key);
+        if (markedAt != null) {
+            hits++;
+            return false;
+        }
+
+        misses++;
+        entries.put(key, now);
+        if (entries.size() > maxEntries) {
+            Iterator<String> eldest = entries.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+        return true;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized String statsSummary() {
+        return "size=" + entries.size() + " hits=" + hits + " misses=" + misses + " evictions=" + evictions;
+    }
+
+    /**
+     * Drops volatile query parameters, keeping the remaining ones in their original order.
+     */
+    static String normalize(String url) {
+        int queryStart = url.indexOf('?');
+        if (queryStart == -1) {
+            return url;
+        }
+
+        StringBuilder normalized = new StringBuilder(url.length()).append(url, 0, queryStart);
+        char separator = '?';
+        for (String pair : url.substring(queryStart + 1).split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            String name = eq == -1 ? pair : pair.substring(0, eq);
+            if (isVolatile(name)) {
+                continue;
+            }
+            normalized.append(separator).append(pair);
+            separator = '&';
+        }
+        return normalized.toString();
+    }
+
+    private static boolean isVolatile(String name) {
+        for (String param : VOLATILE_PARAMS) {
+            if (param.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Entries are in marking order, so expired ones form a prefix of the map
+    private void expire(long now) {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Long> entry = it.next();
+            if (now - entry.getValue() < ttlMillis) {
+                break;
+            }
+            it.remove();
+            evictions++;
+        }
+    }
+}
@@ -1,10 +1,20 @@
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.List;
 
 public class DatabaseHandlerTest {
-    public static void main(String[] args) {
-        // Step 1: Initialize the DatabaseHandler
-        DatabaseHandler dbHandler = new DatabaseHandler();
+    public static void main(String[] args) throws Exception {
+        // Step 1: Initialize the DatabaseHandler on a scratch directory, never on the committed database/
+        Path testDir = Files.createTempDirectory("news-test");
+        DatabaseHandler dbHandler = new DatabaseHandler(testDir.toString());
 
         // Step 2: Insert a news entry into the database
         Timestamp currentTime = new Timestamp(System.currentTimeMillis());
@@ -12,20 +22,219 @@ public class DatabaseHandlerTest {
         String content = "New advancements in AI are transforming industries.";
         dbHandler.saveNews(currentTime, category, content);
 
-        // Step 3: Fetch all news entries from the database and print them
+        // Step 3: Fetch all news entries from the database; the same entry a second time is a duplicate
+        dbHandler.saveNews(currentTime, category, content);
         List<News> allNews = dbHandler.fetchNews();
-        System.out.println("All News Records:");
-        for (News news : allNews) {
-            System.out.println(news);
-        }
+        check(allNews.size() == 1, "expected 1 stored news, found " + allNews.size());
+        check(allNews.get(0).equals(new News(currentTime, category, content)), "stored news differs: " + allNews.get(0));
 
         // Step 4: Fetch news within a specific time window
         Timestamp startTime = new Timestamp(System.currentTimeMillis() - 24 * 60 * 60 * 1000); // 24 hours ago
         Timestamp endTime = new Timestamp(System.currentTimeMillis());
         List<News> newsInTimeWindow = dbHandler.fetchNewsByTimeWindow(startTime, endTime);
-        System.out.println("\nNews in the Last 24 Hours:");
-        for (News news : newsInTimeWindow) {
-            System.out.println(news);
+        check(newsInTimeWindow.size() == 1, "expected 1 news in the last 24 hours, found " + newsInTimeWindow.size());
+        check(dbHandler.fetchNewsByTimeWindow(new Timestamp(startTime.getTime() - 1000), startTime).isEmpty(),
+                "a window before the entry returned rows");
+
+        // Step 5: Push a burst of entries through the batched write pipeline
+        try (NewsWriter writer = dbHandler.openWriter(50, 500, 200)) {
+            for (int i = 0; i < 500; i++) {
+                writer.submit(new News(new Timestamp(System.currentTimeMillis() + i), category, "Pipelined entry #" + i));
+            }
+            writer.flush();
+            check(writer.getRowsWritten() == 500, "writer stored " + writer.getRowsWritten() + " of 500 rows");
+            check(writer.getRowsFailed() == 0, "writer failed " + writer.getRowsFailed() + " rows");
+        }
+        check(dbHandler.fetchNews().size() == 501, "expected 501 news after the burst");
+
+        // Everything written so far is inside this window; the end leaves room for the +i offsets above
+        Timestamp windowEnd = new Timestamp(System.currentTimeMillis() + 60_000);
+
+        // Step 6: Page through the same window lazily via the streaming API, in time order
+        List<News> streamed = dbHandler.streamNewsByTimeWindow(null, startTime, windowEnd, 100).toList();
+        check(streamed.size() == 501, "streamed " + streamed.size() + " of 501 news");
+        for (int i = 1; i < streamed.size(); i++) {
+            check(streamed.get(i - 1).getNewsTimeMillis() <= streamed.get(i).getNewsTimeMillis(), "stream is not in time order");
+        }
+
+        // Step 7: Full-text search over stored content, ranked
+        List<News> matches = dbHandler.searchNews("advancements", null, null, 10);
+        check(matches.size() == 1 && matches.get(0).getContent().equals(content), "search for 'advancements' returned " + matches);
+        check(dbHandler.searchNews("Pipelined entry", null, null, 1000).size() == 500, "search for 'Pipelined entry' missed rows");
+
+        // Step 8: Time-window reads on the read pool while the writer keeps committing (WAL)
+        try (NewsWriter writer = dbHandler.openWriter(20, 100, 100)) {
+            List<Throwable> readerErrors = new ArrayList<>();
+            Thread reader = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 20; i++) {
+                        dbHandler.fetchNewsByTimeWindow(startTime, windowEnd);
+                    }
+                } catch (Throwable t) {
+                    readerErrors.add(t);
+                }
+            });
+            reader.start();
+            for (int i = 0; i < 200; i++) {
+                writer.submit(new News(new Timestamp(System.currentTimeMillis() + i), category, "Concurrent entry #" + i));
+            }
+            writer.flush();
+            reader.join();
+            check(readerErrors.isEmpty(), "concurrent reader failed: " + readerErrors);
+        }
+
+        // Step 9: A window inside the last hour is answered by the in-memory hot window, and matches SQLite
+        Timestamp recentStart = new Timestamp(System.currentTimeMillis() - 5 * 60 * 1000);
+        List<News> recent = dbHandler.fetchNewsByTimeWindow(recentStart, windowEnd);
+        check(recent.size() == 701, "expected 701 news in the last 5 minutes, found " + recent.size());
+        check(dbHandler.getHotWindow().getHits() > 0, "hot window was never used: " + dbHandler.getHotWindow().statsSummary());
+
+        // Step 10: Bulk-load the last 24 hours into columns and count per category
+        NewsColumns columns = dbHandler.loadColumns(startTime, windowEnd, false);
+        check(columns.size() == 701, "columnar load returned " + columns.size() + " of 701 rows");
+        check(Integer.valueOf(701).equals(columns.countByCategory().get(category)), "wrong category counts " + columns.countByCategory());
+
+        // Step 11: Nothing is old enough to have been moved to an archive partition
+        NewsArchive archive = dbHandler.getArchive();
+        check(archive.getPartitions().isEmpty(), "unexpected archive partitions " + archive.getPartitions().size());
+
+        // Step 12: Export the last 24 hours in both bulk formats and import them into a scratch database
+        Path bulkDir = Files.createTempDirectory("news-bulk");
+        File ndjson = bulkDir.resolve("news.ndjson.gz").toFile();
+        File columnar = bulkDir.resolve("news.ncol.gz").toFile();
+        check(dbHandler.exportNews(startTime, windowEnd, ndjson) == 701, "NDJSON export is incomplete");
+        check(dbHandler.exportNews(startTime, windowEnd, columnar) == 701, "columnar export is incomplete");
+        try (DatabaseHandler copy = new DatabaseHandler(bulkDir.toString())) {
+            check(copy.importNews(ndjson) == 701, "NDJSON import is incomplete");
+            // Every row is already there, so the second import only finds duplicates
+            check(copy.importNews(columnar) == 0, "columnar import stored duplicates");
+            check(copy.searchNews("advancements", null, null, 10).size() == 1, "imported rows are not searchable");
+        }
+
+        // Step 13: A checkpoint is committed together with the rows submitted before it
+        try (NewsWriter writer = dbHandler.openWriter(50, 500, 200)) {
+            News last = null;
+            for (int i = 0; i < 120; i++) {
+                last = new News(new Timestamp(System.currentTimeMillis() + i), category, "Checkpointed entry #" + i, 900_000 + i);
+                writer.submit(last);
+            }
+            FeedWatermark watermark = FeedWatermark.empty();
+            watermark.advance(last);
+            writer.checkpoint("test:checkpoint", watermark);
+        }
+        check(dbHandler.loadWatermark("test:checkpoint").getLastId() == 900_119,
+                "stored checkpoint is " + dbHandler.loadWatermark("test:checkpoint"));
+        check(dbHandler.fetchNews().size() == 821, "checkpointed rows are missing");
+        // A feed without a stored watermark starts empty, not behind the rows of other feeds
+        check(dbHandler.loadWatermark("test:new-feed").getLastTimeMillis() == 0, "a new feed was seeded from other feeds' rows");
+
+        // Step 14: A failed batch keeps the feed's stored watermark behind its rows until they are written
+        Path failureDir = Files.createTempDirectory("news-failure");
+        try (DatabaseHandler scratch = new DatabaseHandler(failureDir.toString());
+             Connection raw = DriverManager.getConnection("jdbc:sqlite:" + failureDir.resolve("news.db"));
+             Statement stmt = raw.createStatement()) {
+            // While this trigger exists, any batch holding a "Failing" row is rolled back as a whole
+            stmt.execute("CREATE TRIGGER forced_failure BEFORE INSERT ON news WHEN new.content LIKE 'Failing%'"
+                    + " BEGIN SELECT RAISE(ABORT, 'forced batch failure'); END");
+
+            long now = System.currentTimeMillis();
+            List<News> failing = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                failing.add(new News(new Timestamp(now + i), category, "Failing entry #" + i, 800_000 + i));
+            }
+            News later = new News(new Timestamp(now + 100), category, "Entry after the failure", 800_100);
+
+            try (NewsWriter writer = scratch.openWriter(50, 100, 200)) {
+                FeedSink sink = new FeedSink(scratch, writer, "test:failure");
+                for (int cycle = 1; cycle <= 3; cycle++) {
+                    if (cycle == 3) {
+                        stmt.execute("DROP TRIGGER forced_failure");
+                    }
+                    // Each cycle polls the failed rows again, and from the second one on a newer row as well; nothing is
+                    // stored before the third cycle, which commits every row and the watermark of 800100
+                    FeedWatermark baseline = sink.baseline();
+                    for (News news : failing) {
+                        sink.accept(news, baseline);
+                    }
+                    if (cycle > 1) {
+                        sink.accept(later, baseline);
+                    }
+                    sink.checkpoint(baseline);
+                    writer.flush();
+                    FeedWatermark stored = scratch.loadWatermark("test:failure");
+                    check(stored.getLastId() == (cycle < 3 ? 0 : 800_100), "cycle " + cycle + " stored " + stored);
+                }
+            }
+            check(scratch.fetchNews().size() == 11, "failed rows were not written on the third cycle");
+        }
+
+        dbHandler.close();
+
+        // Step 15: A database created before dedup_key existed is migrated on open: keys backfilled, duplicates collapsed
+        Path legacyDir = Files.createTempDirectory("news-legacy");
+        String legacyUrl = "jdbc:sqlite:" + legacyDir.resolve("news.db");
+        long legacyTime = System.currentTimeMillis() - 60_000;
+        try (Connection raw = DriverManager.getConnection(legacyUrl);
+             Statement stmt = raw.createStatement()) {
+            // The table exactly as the first release created it
+            stmt.execute("""
+                    CREATE TABLE news (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        news_time TIMESTAMP NOT NULL,
+                        category TEXT,
+                        content TEXT
+                    )
+                    """);
+            try (PreparedStatement insert = raw.prepareStatement(
+                    "INSERT INTO news (news_time, category, content) VALUES (?, ?, ?)")) {
+                for (int i = 0; i < 6; i++) {
+                    // Rows 0/3, 1/4 and 2/5 are the same item scraped twice
+                    insert.setTimestamp(1, new Timestamp(legacyTime + i % 3));
+                    insert.setString(2, category);
+                    insert.setString(3, "Legacy entry #" + i % 3);
+                    insert.executeUpdate();
+                }
+            }
+        }
+        try (DatabaseHandler migrated = new DatabaseHandler(legacyDir.toString())) {
+            List<News> legacyNews = migrated.fetchNews();
+            check(legacyNews.size() == 3, "migration kept " + legacyNews.size() + " of 3 distinct rows");
+            // The unique index now rejects the same item a third time
+            migrated.saveNews(new Timestamp(legacyTime), category, "Legacy entry #0");
+            check(migrated.fetchNews().size() == 3, "a migrated duplicate was stored again");
+        }
+        try (Connection raw = DriverManager.getConnection(legacyUrl);
+             Statement stmt = raw.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM news WHERE dedup_key IS NULL")) {
+            check(rs.next() && rs.getInt(1) == 0, "migration left rows without a dedup_key");
+        }
+
+        // Step 16: A row another connection writes to the same file shows up in hot-window reads once it is noticed
+        Path sharedDir = Files.createTempDirectory("news-shared");
+        try (DatabaseHandler shared = new DatabaseHandler(sharedDir.toString());
+             Connection raw = DriverManager.getConnection("jdbc:sqlite:" + sharedDir.resolve("news.db"));
+             PreparedStatement insert = raw.prepareStatement(
+                     "INSERT INTO news (news_time, category, content, dedup_key) VALUES (?, ?, ?, ?)")) {
+            shared.saveNews(new Timestamp(System.currentTimeMillis()), category, "Entry of this handler");
+            Timestamp sharedStart = new Timestamp(System.currentTimeMillis() - 60_000);
+            Timestamp sharedEnd = new Timestamp(System.currentTimeMillis() + 60_000);
+            check(shared.fetchNewsByTimeWindow(sharedStart, sharedEnd).size() == 1, "the handler's own row is missing");
+
+            insert.setTimestamp(1, new Timestamp(System.currentTimeMillis()));
+            insert.setString(2, category);
+            insert.setString(3, "Entry of another process");
+            insert.setString(4, "external");
+            insert.executeUpdate();
+            Thread.sleep(300);
+            check(shared.fetchNewsByTimeWindow(sharedStart, sharedEnd).size() == 2, "the outside write was not seen");
+        }
+
+        System.out.println("DatabaseHandlerTest passed.");
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) {
+            throw new AssertionError(failure);
         }
     }
 }
@@ -0,0 +1,95 @@
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+public class NewsArchiveTest {
+    public static void main(String[] args) throws Exception {
+        Path testDir = Files.createTempDirectory("news-archive");
+        File exportDir = testDir.resolve("cold").toFile();
+        ZoneId zone = ZoneId.systemDefault();
+        YearMonth oldMonth = YearMonth.now(zone).minusMonths(3);
+        long oldStart = oldMonth.atDay(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        long oldEnd = oldMonth.plusMonths(1).atDay(1).atStartOfDay(zone).toInstant().toEpochMilli() - 1;
+        long now = System.currentTimeMillis();
+
+        try (DatabaseHandler dbHandler = new DatabaseHandler(testDir.toString())) {
+            // Step 1: Rows of a month three months back and of today
+            List<News> rows = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                rows.add(new News(new Timestamp(oldStart + 60_000L * (i + 1)), "Finance", "Archived entry #" + i, 100 + i));
+            }
+            for (int i = 0; i < 10; i++) {
+                rows.add(new News(new Timestamp(now - 1000 + i), "Finance", "Live entry #" + i, 200 + i));
+            }
+            dbHandler.saveNews(rows);
+
+            // Step 2: Moving everything older than a month out of the live table
+            long moved = dbHandler.archiveOlderThan(1, exportDir);
+            NewsArchive archive = dbHandler.getArchive();
+            check(moved == 50, "archived " + moved + " of 50 rows");
+            // One partition per month from the oldest row up to a month ago; only the oldest one holds rows
+            check(archive.getPartitions().size() == 2, "expected 2 partitions, found " + archive.getPartitions().size());
+            NewsArchive.Partition partition = archive.getPartitions().get(0);
+            check(partition.getMonth().equals(oldMonth), "oldest partition is for " + partition.getMonth());
+            check(partition.getFile().isFile(), "partition file is missing");
+            check(archive.isArchived(oldEnd) && !archive.isArchived(now), "boundary is " + archive.getBoundaryMillis());
+
+            // Step 3: Time-window reads are routed to the partition, across the boundary too
+            check(dbHandler.fetchNewsByTimeWindow(new Timestamp(oldStart), new Timestamp(oldEnd)).size() == 50,
+                    "archived month did not read back from its partition");
+            check(dbHandler.fetchNewsByTimeWindow(new Timestamp(oldStart), new Timestamp(now + 1000)).size() == 60,
+                    "window across the boundary missed rows");
+            List<News> streamed = dbHandler.streamNewsByTimeWindow(null, new Timestamp(oldStart), new Timestamp(now + 1000), 7).toList();
+            check(streamed.size() == 60, "streamed " + streamed.size() + " of 60 rows across the boundary");
+            check(streamed.get(0).getContent().equals("Archived entry #0"), "stream does not start in the archive");
+
+            // Step 3b: Full reads, columnar loads and search include the archived month
+            check(dbHandler.fetchNews().size() == 60, "fetchNews returned " + dbHandler.fetchNews().size() + " of 60 rows");
+            NewsColumns columns = dbHandler.loadColumns(new Timestamp(oldStart), new Timestamp(now + 1000), true);
+            check(columns.size() == 60, "columnar load returned " + columns.size() + " of 60 rows");
+            check(dbHandler.searchNews("Archived entry", null, null, 100).size() == 50, "search missed archived rows");
+            List<News> mixed = dbHandler.searchNews("entry", null, null, 15);
+            check(mixed.size() == 15 && mixed.get(0).getContent().startsWith("Live")
+                    && mixed.get(10).getContent().equals("Archived entry #49"), "search did not rank live rows first: " + mixed);
+            check(dbHandler.searchNews("Archived entry", new Timestamp(now - 60_000), null, 100).isEmpty(),
+                    "search read partitions outside its window");
+
+            // Step 4: The month was written to cold storage once
+            File coldFile = new File(exportDir, partition.getFile().getName().replace(".db", ".ncol.gz"));
+            check(coldFile.isFile(), "cold export " + coldFile + " is missing");
+            check(archive.exportChanged(exportDir) == 0, "unchanged month was exported again");
+
+            // Step 5: A late row for the archived month lands in its partition, a repeat of it is ignored
+            News late = new News(new Timestamp(oldEnd - 1000), "Finance", "Late entry", 999);
+            dbHandler.saveNews(List.of(late));
+            dbHandler.saveNews(List.of(late));
+            List<News> archived = archive.fetch(oldStart, oldEnd);
+            check(archived.size() == 51 && archived.contains(late), "late row was not routed to the partition");
+            check(dbHandler.fetchNewsByTimeWindow(new Timestamp(now - 60_000), new Timestamp(now + 1000)).size() == 10,
+                    "late row reached the live table");
+
+            // Step 6: The late row changed the month, so its cold export is written again with it
+            check(archive.exportChanged(exportDir) == 1, "changed month was not exported again");
+            try (ColumnarNewsFile.Reader reader = ColumnarNewsFile.openReader(coldFile)) {
+                int exported = reader.readAll().size();
+                check(exported == 51, "cold export holds " + exported + " of 51 rows");
+            }
+
+            // Step 7: Nothing is left to archive
+            check(dbHandler.archiveOlderThan(1, null) == 0, "archived the same month twice");
+        }
+
+        System.out.println("NewsArchiveTest passed.");
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) {
+            throw new AssertionError(failure);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class NewsBusTest {
+    public static void main(String[] args) throws Exception {
+        long now = System.currentTimeMillis();
+
+        // Step 1: Filters match on category and, ignoring case, on any keyword
+        NewsBus.Filter filter = NewsBus.Filter.of(List.of("Macro"), List.of("Rate", "oil"));
+        check(filter.matches(new News(new Timestamp(now), "Macro", "Central bank keeps the RATE")), "keyword match missed");
+        check(!filter.matches(new News(new Timestamp(now), "Market", "Oil rises")), "other category matched");
+        check(!filter.matches(new News(new Timestamp(now), "Macro", "Nothing relevant")), "missing keyword matched");
+        check(!filter.matches(new News(new Timestamp(now), null, "oil")), "news without category matched");
+        check(NewsBus.Filter.ALL.matches(new News(new Timestamp(now), null, null)), "ALL did not match");
+
+        // Step 2: Each subscriber only receives what its filter matches, in publishing order
+        NewsBus bus = new NewsBus();
+        NewsBus.Subscription all = bus.subscribe(NewsBus.Filter.ALL, 100, NewsBus.OverflowPolicy.DROP_NEWEST);
+        NewsBus.Subscription macro = bus.subscribe(NewsBus.Filter.of(List.of("Macro"), List.of()), 100, NewsBus.OverflowPolicy.DROP_NEWEST);
+        for (int i = 0; i < 10; i++) {
+            bus.publish(new News(new Timestamp(now + i), i % 2 == 0 ? "Macro" : "Market", "Item #" + i));
+        }
+        List<News> received = new ArrayList<>();
+        check(all.drainTo(received, 100) == 10, "ALL subscriber missed items");
+        check(received.get(0).getContent().equals("Item #0") && received.get(9).getContent().equals("Item #9"), "items out of order");
+        check(macro.getBuffered() == 5 && macro.getReceived() == 5, "category subscriber got " + macro.getBuffered());
+        all.close();
+        macro.close();
+        check(bus.getSubscriberCount() == 0, "closed subscriptions are still registered");
+
+        // Step 3: DROP_NEWEST keeps the first items, DROP_OLDEST the last ones, both count the rest
+        NewsBus.Subscription newest = bus.subscribe(NewsBus.Filter.ALL, 3, NewsBus.OverflowPolicy.DROP_NEWEST);
+        NewsBus.Subscription oldest = bus.subscribe(NewsBus.Filter.ALL, 3, NewsBus.OverflowPolicy.DROP_OLDEST);
+        for (int i = 0; i < 5; i++) {
+            bus.publish(new News(new Timestamp(now + i), "Macro", "Overflow #" + i));
+        }
+        check(newest.getDropped() == 2 && newest.poll(0, TimeUnit.MILLISECONDS).getContent().equals("Overflow #0"),
+                "DROP_NEWEST dropped the wrong items");
+        check(oldest.getDropped() == 2 && oldest.poll(0, TimeUnit.MILLISECONDS).getContent().equals("Overflow #2"),
+                "DROP_OLDEST dropped the wrong items");
+        check(bus.statsSummary().contains("dropped=4"), "bus stats are " + bus.statsSummary());
+        newest.close();
+        oldest.close();
+
+        // Step 4: BLOCK holds the publisher until the subscriber makes room, and closing it releases the publisher
+        NewsBus.Subscription blocking = bus.subscribe(NewsBus.Filter.ALL, 1, NewsBus.OverflowPolicy.BLOCK);
+        bus.publish(new News(new Timestamp(now), "Macro", "Fills the buffer"));
+        Thread publisher = new Thread(() -> {
+            try {
+                bus.publish(new News(new Timestamp(now + 1), "Macro", "Waits for room"));
+                bus.publish(new News(new Timestamp(now + 2), "Macro", "Waits for close"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        publisher.start();
+        publisher.join(300);
+        check(publisher.isAlive(), "publisher did not block on a full BLOCK subscriber");
+        check(blocking.poll(1, TimeUnit.SECONDS).getContent().equals("Fills the buffer"), "BLOCK subscriber lost its item");
+
+        // The freed slot takes the blocked item, and the publisher blocks again on the next one
+        Thread.sleep(300);
+        check(blocking.getBuffered() == 1 && publisher.isAlive(), "publisher did not block on the third item");
+        blocking.close();
+        publisher.join(2000);
+        check(!publisher.isAlive(), "closing the subscription did not release the publisher");
+        check(blocking.getDropped() == 0, "BLOCK subscriber dropped items");
+
+        // Step 5: Capacity must be positive
+        try {
+            bus.subscribe(NewsBus.Filter.ALL, 0, NewsBus.OverflowPolicy.BLOCK);
+            throw new AssertionError("capacity 0 was accepted");
+        } catch (IllegalArgumentException expected) {
+            // Rejected as it should be
+        }
+
+        System.out.println("NewsBusTest passed.");
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) {
+            throw new AssertionError(failure);
+        }
+    }
+}
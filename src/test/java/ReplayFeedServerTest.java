@@ -0,0 +1,92 @@
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class ReplayFeedServerTest {
+    public static void main(String[] args) throws Exception {
+        // Step 1: The rate pattern adds the burst rate on top of the base rate during each burst
+        ReplayFeedServer.RatePattern pattern = new ReplayFeedServer.RatePattern(10, 100, 1000, 10_000);
+        check(pattern.itemsDue(1000) == 100, "first burst due " + pattern.itemsDue(1000));
+        check(pattern.itemsDue(5000) == 140, "after the first burst due " + pattern.itemsDue(5000));
+        check(pattern.itemsDue(11_000) == 290, "after the second burst due " + pattern.itemsDue(11_000));
+        check(new ReplayFeedServer.RatePattern(5, 0, 0, 0).itemsDue(2000) == 10, "steady rate is off");
+
+        // Step 2: Recorded pages are merged, repeats of an id dropped, and items ordered oldest first
+        Path recordings = Files.createTempDirectory("news-replay");
+        Files.writeString(recordings.resolve("page_1.jsonp"), "try{jQuery1(" + SinaFeedParserTest.feed("""
+                {"id":12,"rich_text":"Recorded B","create_time":"2025-01-20 12:00:02"},
+                {"id":11,"rich_text":"Recorded A","create_time":"2025-01-20 12:00:01"}
+                """) + ");}catch(e){};", StandardCharsets.UTF_8);
+        Files.writeString(recordings.resolve("page_2.json"), SinaFeedParserTest.feed("""
+                {"id":13,"rich_text":"Recorded C","create_time":"2025-01-20 12:00:03"},
+                {"id":12,"rich_text":"Recorded B","create_time":"2025-01-20 12:00:02"}
+                """), StandardCharsets.UTF_8);
+        Files.writeString(recordings.resolve("notes.txt"), "not a recording", StandardCharsets.UTF_8);
+        List<ObjectNode> recorded = ReplayFeedServer.loadRecordedItems(recordings.toFile());
+        check(recorded.size() == 3, "loaded " + recorded.size() + " of 3 recorded items");
+        check(recorded.get(0).path("id").asLong() == 11 && recorded.get(2).path("id").asLong() == 13, "recording is not oldest first");
+
+        // Step 3: A burst of 100 items at start-up and nothing after, so the pages below are stable
+        ReplayFeedServer.RatePattern burst = new ReplayFeedServer.RatePattern(0, 1000, 100, 3_600_000);
+        long lastId;
+        try (ReplayFeedServer server = new ReplayFeedServer(0, recorded, burst, 0, 2)) {
+            Thread.sleep(300);
+            SinaFeedClient client = new SinaFeedClient(server.getFeedUrl(), "152", 20, "http://localhost/");
+
+            // Step 4: Pages are newest first with fresh increasing ids; the recording loops with a suffix
+            List<News> first = fetch(client, client.buildFeedUrl(1));
+            List<News> second = fetch(client, client.buildFeedUrl(2));
+            check(first.size() == 20 && second.size() == 20, "pages held " + first.size() + " and " + second.size() + " items");
+            check(first.get(0).getSourceId() > 13, "replayed ids do not continue after the recording");
+            for (int i = 1; i < first.size(); i++) {
+                check(first.get(i).getSourceId() == first.get(i - 1).getSourceId() - 1, "ids on a page are not consecutive");
+            }
+            check(second.get(0).getSourceId() == first.get(19).getSourceId() - 1, "page 2 does not continue page 1");
+            check(first.get(0).getContent().endsWith(" (replay 33)"), "newest item is " + first.get(0).getContent());
+            check(server.getItemsPublished() == 100, "published " + server.getItemsPublished() + " of 100 items");
+
+            // Step 5: Pages past the end are empty, JSONP is served when a callback is given
+            check(fetch(client, client.buildFeedUrl(6)).isEmpty(), "page 6 of 100 items is not empty");
+            check(fetch(client, client.buildFeedUrl(1) + "&callback=jQuery123").equals(first), "JSONP page differs");
+
+            // Step 6: Other paths are not found
+            try {
+                client.fetchStream(server.getFeedUrl().replace(ReplayFeedServer.FEED_PATH, "/other")).close();
+                throw new AssertionError("an unknown path was served");
+            } catch (IOException expected) {
+                check(expected.getMessage().startsWith("HTTP 404"), "unexpected error " + expected.getMessage());
+            }
+            // The unknown path never reaches the feed handler, so it is not counted
+            check(server.statsSummary().equals("requests=4, published=100, served=60"), "server stats are " + server.statsSummary());
+            lastId = first.get(0).getSourceId();
+        }
+
+        // Step 7: A second run on the same recording continues above the ids of the first, so the watermark the
+        // first run left behind in the replay database does not hide its items
+        try (ReplayFeedServer server = new ReplayFeedServer(0, recorded, burst, 0, 2)) {
+            Thread.sleep(300);
+            SinaFeedClient client = new SinaFeedClient(server.getFeedUrl(), "152", 20, "http://localhost/");
+            List<News> rerun = fetch(client, client.buildFeedUrl(5));
+            check(rerun.get(rerun.size() - 1).getSourceId() > lastId, "second run reused the ids of the first");
+        }
+
+        System.out.println("ReplayFeedServerTest passed.");
+    }
+
+    private static List<News> fetch(SinaFeedClient client, String url) throws Exception {
+        try (InputStream body = client.fetchStream(url)) {
+            return SinaFeedParser.parse(body, FeedWatermark.empty());
+        }
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) {
+            throw new AssertionError(failure);
+        }
+    }
+}
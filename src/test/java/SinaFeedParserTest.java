@@ -0,0 +1,85 @@
+import java.io.IOException;
+import java.util.List;
+
+public class SinaFeedParserTest {
+    public static void main(String[] args) throws Exception {
+        String items = """
+                {"id":103,"rich_text":"Third","create_time":"2025-01-20 12:00:03","tag":[{"id":"1","name":"Macro"},{"id":"5","name":"Market"}]},
+                {"id":102,"rich_text":"Second","create_time":"2025-01-20 12:00:02","tag":[],"comment_list":{"list":[{"id":1}]}},
+                {"id":101,"rich_text":"First","create_time":"2025-01-20 12:00:01","ext":"{\\"stocks\\": []}"}
+                """;
+        String json = feed(items);
+
+        // Step 1: Plain JSON, newest first, with the first tag as category and unknown fields skipped
+        List<News> parsed = SinaFeedParser.parse(json, FeedWatermark.empty());
+        check(parsed.size() == 3, "parsed " + parsed.size() + " of 3 items");
+        check(parsed.get(0).getSourceId() == 103 && parsed.get(0).getContent().equals("Third"), "wrong first item " + parsed.get(0));
+        check("Macro".equals(parsed.get(0).getCategory()), "category is " + parsed.get(0).getCategory());
+        check(parsed.get(1).getCategory() == null && parsed.get(2).getCategory() == null, "items without tags got a category");
+        check(parsed.get(2).getNewsTime().toString().equals("2025-01-20 12:00:01.0"), "create_time is " + parsed.get(2).getNewsTime());
+
+        // Step 2: The same body as JSONP, behind a byte order mark and whitespace, parses the same
+        String jsonp = "\uFEFF \n try{jQuery111205718232756906723_1737340196915(" + json + ");}catch(e){};";
+        check(SinaFeedParser.parse(jsonp, FeedWatermark.empty()).equals(parsed), "JSONP body parsed differently");
+        // Only the callback prefix matters: readers ignore what follows the JSON value
+        check(SinaFeedParser.extractPureJson(jsonp).startsWith(json), "extractPureJson did not strip the callback");
+        check(SinaFeedParser.extractPureJson(json).equals(json), "extractPureJson changed plain JSON");
+
+        // Step 3: Items at or below the watermark's id are skipped
+        List<News> newer = SinaFeedParser.parse(json, new FeedWatermark(102, 0));
+        check(newer.size() == 1 && newer.get(0).getSourceId() == 103, "id watermark kept " + newer);
+
+        // Step 4: Without an id in the watermark, items older than its time are skipped and equal ones kept
+        long secondTime = parsed.get(1).getNewsTimeMillis();
+        check(SinaFeedParser.parse(json, new FeedWatermark(0, secondTime)).size() == 2, "time watermark dropped an equal item");
+
+        // Step 5: Items without content or time are dropped, the rest of the page is still read
+        String incomplete = feed("""
+                {"id":201,"create_time":"2025-01-20 12:00:01"},
+                {"id":202,"rich_text":"No time"},
+                {"id":203,"rich_text":"Complete","create_time":"2025-01-20 12:00:03"},
+                "not an object"
+                """);
+        List<News> complete = SinaFeedParser.parse(incomplete, FeedWatermark.empty());
+        check(complete.size() == 1 && complete.get(0).getSourceId() == 203, "incomplete items were kept: " + complete);
+
+        // Step 6: An item with an unreadable create_time is skipped and counted, the rest of the page is kept
+        long malformedBefore = PipelineMetrics.global().getItemsMalformed();
+        String malformed = feed("""
+                {"id":303,"rich_text":"After","create_time":"2025-01-20 12:00:03"},
+                {"id":302,"rich_text":"Bad time","create_time":"20/01/2025 12:00","tag":[{"name":"Macro"}]},
+                {"id":301,"rich_text":"Before","create_time":"2025-01-20 12:00:01"}
+                """);
+        List<News> readable = SinaFeedParser.parse(malformed, FeedWatermark.empty());
+        check(readable.size() == 2 && readable.get(1).getSourceId() == 301, "malformed item broke the page: " + readable);
+        check(PipelineMetrics.global().getItemsMalformed() == malformedBefore + 1, "malformed item was not counted");
+
+        // Step 7: An empty list is a valid page; a body without the list is an error
+        check(SinaFeedParser.parse(feed(""), FeedWatermark.empty()).isEmpty(), "empty list produced items");
+        expectIOException("{\"result\":{\"status\":{\"code\":1,\"msg\":\"error\"}}}");
+        expectIOException("{\"result\":{\"data\":{\"feed\":{\"list\":{}}}}}");
+
+        System.out.println("SinaFeedParserTest passed.");
+    }
+
+    // A feed page in the shape of the real endpoint around the given list items
+    static String feed(String items) {
+        return "{\"result\":{\"status\":{\"code\":0,\"msg\":\"OK\"},\"data\":{\"zhibo\":{\"id\":152},"
+                + "\"feed\":{\"page_info\":{\"page\":1},\"list\":[" + items + "]}}}}";
+    }
+
+    private static void expectIOException(String body) {
+        try {
+            SinaFeedParser.parse(body, FeedWatermark.empty());
+        } catch (IOException expected) {
+            return;
+        }
+        throw new AssertionError("no IOException for " + body);
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) {
+            throw new AssertionError(failure);
+        }
+    }
+}
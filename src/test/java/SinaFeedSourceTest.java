@@ -0,0 +1,63 @@
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class SinaFeedSourceTest {
+    public static void main(String[] args) throws Exception {
+        Path recordings = Files.createTempDirectory("news-source");
+        Files.writeString(recordings.resolve("page_1.json"), SinaFeedParserTest.feed("""
+                {"id":2,"rich_text":"Recorded B","create_time":"2025-01-20 12:00:02"},
+                {"id":1,"rich_text":"Recorded A","create_time":"2025-01-20 12:00:01"}
+                """), StandardCharsets.UTF_8);
+        List<ObjectNode> recorded = ReplayFeedServer.loadRecordedItems(recordings.toFile());
+
+        // 150 items at start-up and nothing after, like a burst between two polls
+        ReplayFeedServer.RatePattern burst = new ReplayFeedServer.RatePattern(0, 1500, 100, 3_600_000);
+        try (ReplayFeedServer server = new ReplayFeedServer(0, recorded, burst, 0, 4);
+             FeedFetcher fetcher = new FeedFetcher(4, 4, 5000)) {
+            Thread.sleep(300);
+            String dynamicUrl = ReplayFeedServer.FEED_PATH;
+            SinaFeedClient client = new SinaFeedClient(server.getFeedUrl(), "152", 20, "http://localhost/");
+            long newestId = SinaFeedParser.parse(client.fetchStream(client.buildFeedUrl(1)), FeedWatermark.empty())
+                    .get(0).getSourceId();
+
+            // Step 1: A first run (empty watermark) only takes the first pages
+            SinaFeedSource source = new SinaFeedSource("152", client, fetcher, dynamicUrl, 1, null);
+            check(source.poll(FeedWatermark.empty()).size() == 20, "first run read past its first page");
+
+            // Step 2: With the watermark 120 items back, paging goes on until the page that reaches it
+            List<News> caughtUp = source.poll(new FeedWatermark(newestId - 120, 0));
+            check(caughtUp.size() == 120, "caught up on " + caughtUp.size() + " of 120 items");
+            Set<Long> ids = new HashSet<>();
+            for (News news : caughtUp) {
+                ids.add(news.getSourceId());
+            }
+            check(ids.size() == 120 && !ids.contains(newestId - 120), "caught-up items are not the 120 newest");
+
+            // Step 3: Several pages per round give the same result
+            SinaFeedSource wide = new SinaFeedSource("152", client, fetcher, dynamicUrl, 3, null);
+            check(wide.poll(new FeedWatermark(newestId - 120, 0)).size() == 120, "three pages per round missed items");
+
+            // Step 4: Past the page limit the poll keeps what it read and reports the gap
+            SinaFeedClient onePerPage = new SinaFeedClient(server.getFeedUrl(), "152", 1, "http://localhost/");
+            SinaFeedSource deep = new SinaFeedSource("152", onePerPage, fetcher, dynamicUrl, 10, null);
+            long gapsBefore = PipelineMetrics.global().getPollGaps();
+            List<News> limited = deep.poll(new FeedWatermark(newestId - 150, 0));
+            check(limited.size() == 100, "read " + limited.size() + " items up to the page limit");
+            check(PipelineMetrics.global().getPollGaps() == gapsBefore + 1, "the gap was not counted");
+        }
+
+        System.out.println("SinaFeedSourceTest passed.");
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) {
+            throw new AssertionError(failure);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SourceSchedulerTest {
+
+    // Returns two new items on every poll, and checks it is never polled while a poll is still running
+    private static final class CountingSource implements NewsSource {
+        final AtomicInteger polls = new AtomicInteger();
+        final AtomicInteger running = new AtomicInteger();
+        volatile boolean overlapped = false;
+        private long nextId = 1;
+
+        @Override
+        public String getKey() {
+            return "test:counting";
+        }
+
+        @Override
+        public List<News> poll(FeedWatermark baseline) throws Exception {
+            if (running.incrementAndGet() > 1) {
+                overlapped = true;
+            }
+            try {
+                polls.incrementAndGet();
+                Thread.sleep(5);
+                List<News> items = new ArrayList<>();
+                for (int i = 0; i < 2; i++, nextId++) {
+                    items.add(new News(new Timestamp(System.currentTimeMillis()), "Macro", "Scheduled entry #" + nextId, nextId));
+                }
+                return items;
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+
+    // Fails every poll
+    private static final class FailingSource implements NewsSource {
+        final AtomicInteger polls = new AtomicInteger();
+
+        @Override
+        public String getKey() {
+            return "test:failing";
+        }
+
+        @Override
+        public List<News> poll(FeedWatermark baseline) throws Exception {
+            polls.incrementAndGet();
+            throw new java.io.IOException("feed is down");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path testDir = Files.createTempDirectory("news-scheduler");
+        try (DatabaseHandler dbHandler = new DatabaseHandler(testDir.toString());
+             NewsWriter writer = dbHandler.openWriter(50, 50, 500)) {
+            CountingSource counting = new CountingSource();
+            FailingSource failing = new FailingSource();
+
+            SourceScheduler scheduler = new SourceScheduler(2);
+
+            // Step 1: Intervals outside 0 < min <= interval <= max are rejected
+            try {
+                scheduler.register(counting, new FeedSink(dbHandler, writer, counting.getKey()), 10, 20, 100);
+                throw new AssertionError("an interval below its minimum was accepted");
+            } catch (IllegalArgumentException expected) {
+                // Rejected as it should be
+            }
+
+            // Step 2: A busy and a failing source polled side by side
+            scheduler.register(counting, new FeedSink(dbHandler, writer, counting.getKey()), 40, 10, 200);
+            scheduler.register(failing, new FeedSink(dbHandler, writer, failing.getKey()), 40, 10, 200);
+            scheduler.start();
+            Thread.sleep(1000);
+            scheduler.stop(5, TimeUnit.SECONDS);
+            int busyPolls = counting.polls.get();
+            int failedPolls = failing.polls.get();
+            writer.flush();
+
+            // Step 3: The busy source speeds up to its minimum interval, the failing one backs off to its maximum
+            check(busyPolls > 3 * failedPolls, "busy source polled " + busyPolls + " times, failing one " + failedPolls);
+            check(failedPolls >= 2, "failing source was not polled again");
+            check(!counting.overlapped, "a source was polled while its previous poll was running");
+
+            // Step 4: Every polled item is stored, and the busy source's watermark with them
+            check(dbHandler.fetchNews().size() == 2 * busyPolls, "stored " + dbHandler.fetchNews().size() + " of "
+                    + 2 * busyPolls + " polled items");
+            check(dbHandler.loadWatermark(counting.getKey()).getLastId() == 2L * busyPolls,
+                    "stored watermark is " + dbHandler.loadWatermark(counting.getKey()));
+
+            // Step 5: Nothing is polled after stop
+            Thread.sleep(200);
+            check(counting.polls.get() == busyPolls, "a source was polled after stop");
+        }
+
+        System.out.println("SourceSchedulerTest passed.");
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) {
+            throw new AssertionError(failure);
+        }
+    }
+}
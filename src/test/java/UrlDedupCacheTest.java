@@ -0,0 +1,47 @@
+public class UrlDedupCacheTest {
+    public static void main(String[] args) throws Exception {
+        // Step 1: The JSONP callback and cache-buster are dropped, other parameters keep their order
+        check(UrlDedupCache.normalize("https://zhibo.sina.com.cn/api/zhibo/feed?callback=jQuery1&page=1&_=1737&zhibo_id=152")
+                        .equals("https://zhibo.sina.com.cn/api/zhibo/feed?page=1&zhibo_id=152"),
+                "normalize kept a volatile parameter");
+        check(UrlDedupCache.normalize("https://example.com/feed").equals("https://example.com/feed"), "URL without query changed");
+        check(UrlDedupCache.normalize("https://example.com/feed?_=1").equals("https://example.com/feed"), "empty query was kept");
+
+        // Step 2: The same page requested twice, with a different callback each time, is only new once
+        UrlDedupCache cache = new UrlDedupCache(3, 60_000);
+        check(cache.markIfNew("https://example.com/feed?page=1&callback=a"), "first request was not new");
+        check(!cache.markIfNew("https://example.com/feed?page=1&callback=b"), "repeat with another callback was new");
+        check(cache.getHits() == 1 && cache.getMisses() == 1, "wrong counters: " + cache.statsSummary());
+
+        // Step 3: Past maxEntries the oldest URL is evicted and becomes new again
+        cache.markIfNew("https://example.com/feed?page=2");
+        cache.markIfNew("https://example.com/feed?page=3");
+        cache.markIfNew("https://example.com/feed?page=4");
+        check(cache.size() == 3, "cache grew past maxEntries: " + cache.statsSummary());
+        check(cache.getEvictions() == 1, "expected 1 eviction: " + cache.statsSummary());
+        check(cache.markIfNew("https://example.com/feed?page=1"), "evicted URL was still cached");
+
+        // Step 4: Entries expire after the TTL
+        UrlDedupCache shortLived = new UrlDedupCache(10, 50);
+        check(shortLived.markIfNew("https://example.com/feed?page=1"), "first request was not new");
+        Thread.sleep(100);
+        check(shortLived.markIfNew("https://example.com/feed?page=1"), "expired URL was still cached");
+        check(shortLived.size() == 1, "expired entry was kept: " + shortLived.statsSummary());
+
+        // Step 5: Bounds must be positive
+        try {
+            new UrlDedupCache(0, 1000);
+            throw new AssertionError("maxEntries 0 was accepted");
+        } catch (IllegalArgumentException expected) {
+            // Rejected as it should be
+        }
+
+        System.out.println("UrlDedupCacheTest passed.");
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) {
+            throw new AssertionError(failure);
+        }
+    }
+}